@@ -0,0 +1,93 @@
+package com.example.coursesystem.benchmark;
+
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.service.RegistrationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throughput (ops/ms) và SampleTime (p50/p99 ms/op) cho đường đăng ký/hủy đăng ký.
+// Mỗi lần đăng ký được hủy lại sau đó (ngoài phần đo) để dữ liệu giữ nguyên trong suốt phép đo.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+
+    @State(Scope.Thread)
+    public static class Pair {
+        long studentId;
+        long courseId;
+        boolean registered;
+
+        @TearDown(Level.Invocation)
+        public void cleanUp(SeededApplication app) {
+            if (registered) {
+                app.unregister(studentId, courseId);
+                registered = false;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ExistingRegistration {
+        long studentId;
+        long courseId;
+
+        @Setup(Level.Invocation)
+        public void insert(SeededApplication app) {
+            studentId = app.randomNonDiscountStudent();
+            courseId = app.randomUpcomingCourse();
+            app.insertRegistration(studentId, courseId);
+        }
+    }
+
+    private RegistrationService registrationService;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication app) {
+        registrationService = app.bean(RegistrationService.class);
+    }
+
+    @Benchmark
+    public List<Course> registerCourse(SeededApplication app, Pair pair) {
+        return register(app, pair, app.randomNonDiscountStudent(), app.randomUpcomingCourse());
+    }
+
+    @Benchmark
+    public List<Course> registerCourseWithManyUpcoming(SeededApplication app, Pair pair) {
+        return register(app, pair, app.heavyStudentId, app.randomCourseForHeavyStudent());
+    }
+
+    @Benchmark
+    public List<Course> registerCourseWithDiscount(SeededApplication app, Pair pair) {
+        return register(app, pair, app.randomDiscountStudent(), app.randomUpcomingCourse());
+    }
+
+    @Benchmark
+    public boolean unregisterCourse(ExistingRegistration registration) {
+        return registrationService.unregisterCourse(registration.courseId, SeededApplication.email(registration.studentId));
+    }
+
+    private List<Course> register(SeededApplication app, Pair pair, long studentId, long courseId) {
+        pair.studentId = studentId;
+        pair.courseId = courseId;
+        List<Course> courses = registrationService.registerCourse(SeededApplication.email(studentId), courseId);
+        pair.registered = true;
+        return courses;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.coursesystem.benchmark;
+
+import com.example.coursesystem.dto.RegistrationContext;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.repository.CourseRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private RegistrationRepository registrationRepository;
+    private CourseRepository courseRepository;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication app) {
+        registrationRepository = app.bean(RegistrationRepository.class);
+        courseRepository = app.bean(CourseRepository.class);
+    }
+
+    @Benchmark
+    public Optional<RegistrationContext> findRegistrationContext(SeededApplication app) {
+        return registrationRepository.findRegistrationContext(
+                SeededApplication.email(app.randomStudent()), app.randomUpcomingCourse());
+    }
+
+    @Benchmark
+    public int countOngoingCoursesByStudentId(SeededApplication app) {
+        return registrationRepository.countOngoingCoursesByStudentId(app.randomStudent(), LocalDateTime.now());
+    }
+
+    @Benchmark
+    public List<Course> findUpcomingCoursesByStudentId(SeededApplication app) {
+        return courseRepository.findUpcomingCoursesByStudentId(app.heavyStudentId, LocalDateTime.now());
+    }
+}
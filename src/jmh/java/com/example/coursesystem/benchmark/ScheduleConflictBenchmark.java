@@ -0,0 +1,72 @@
+package com.example.coursesystem.benchmark;
+
+import com.example.coursesystem.cache.StudentSchedule;
+import com.example.coursesystem.dto.ScheduleSlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Kiểm tra trùng lịch cho học viên có rất nhiều đăng ký: so từng đăng ký (linearScan) với StudentSchedule.
+// Mỗi khóa học kéo dài 5 ngày, cách nhau 7 ngày; khóa cần kiểm tra rơi ngẫu nhiên vào lịch.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleConflictBenchmark {
+
+    @Param({"1000", "5000"})
+    public int registrations;
+
+    private final LocalDateTime base = LocalDateTime.of(2000, 1, 1, 8, 0);
+    private List<ScheduleSlot> slots;
+    private StudentSchedule schedule;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        slots = new ArrayList<>();
+        for (int i = 0; i < registrations; i++) {
+            LocalDateTime start = base.plusDays(7L * i);
+            slots.add(new ScheduleSlot(1L, (long) i, start, start.plusDays(5)));
+        }
+        schedule = StudentSchedule.of(slots);
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusDays(2);
+        for (ScheduleSlot slot : slots) {
+            if (slot.getStartTime().isBefore(end) && slot.getEndTime().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean studentSchedule() {
+        LocalDateTime start = randomStart();
+        return schedule.overlapping(start, start.plusDays(2)) != null;
+    }
+
+    private LocalDateTime randomStart() {
+        return base.plusHours(ThreadLocalRandom.current().nextLong(24L * 7 * registrations));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.coursesystem.benchmark;
+
+import com.example.coursesystem.CouresesystemApplication;
+import com.example.coursesystem.service.OngoingCourseScheduler;
+import com.example.coursesystem.service.RegistrationService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Ứng dụng chạy trên H2 (chế độ SQL Server) với dữ liệu mẫu:
+// - courses/2 khóa đã kết thúc, ONGOING_COURSES khóa đang học, còn lại là khóa sắp mở;
+//   mỗi khóa sắp mở có khung giờ riêng (cách nhau 6 giờ) để không bị chặn vì trùng lịch
+// - mỗi học viên có registrationsPerStudent đăng ký ở các khóa đã kết thúc
+// - 10% học viên đầu tiên học 2 khóa đang diễn ra (được giảm giá)
+// - một học viên "heavy" đã đăng ký heavyUpcoming khóa sắp mở
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    static final int ONGOING_COURSES = 10;
+
+    @Param("10000")
+    public int students;
+
+    @Param("500")
+    public int courses;
+
+    @Param("20")
+    public int registrationsPerStudent;
+
+    @Param("200")
+    public int heavyUpcoming;
+
+    ConfigurableApplicationContext context;
+    JdbcTemplate jdbcTemplate;
+
+    int pastCourses;
+    int firstUpcomingCourse;
+    long heavyStudentId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(CouresesystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        pastCourses = courses / 2;
+        firstUpcomingCourse = pastCourses + ONGOING_COURSES + 1;
+        heavyStudentId = students + 1L;
+        if (courses - firstUpcomingCourse + 1 <= heavyUpcoming) {
+            throw new IllegalStateException("Cần nhiều khóa sắp mở hơn heavyUpcoming");
+        }
+        seed();
+        // Dữ liệu được insert thẳng bằng JDBC nên phải tự cập nhật số khóa đang học
+        bean(OngoingCourseScheduler.class).advance();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    static String email(long studentId) {
+        return "student" + studentId + "@gmail.com";
+    }
+
+    long randomStudent() {
+        return ThreadLocalRandom.current().nextLong(1, students + 1);
+    }
+
+    long randomNonDiscountStudent() {
+        return ThreadLocalRandom.current().nextLong(students / 10 + 1, students + 1);
+    }
+
+    long randomDiscountStudent() {
+        return ThreadLocalRandom.current().nextLong(1, students / 10 + 1);
+    }
+
+    long randomUpcomingCourse() {
+        return ThreadLocalRandom.current().nextLong(firstUpcomingCourse, courses + 1);
+    }
+
+    // Khóa sắp mở mà học viên heavy chưa đăng ký
+    long randomCourseForHeavyStudent() {
+        return ThreadLocalRandom.current().nextLong(firstUpcomingCourse + heavyUpcoming, courses + 1);
+    }
+
+    void insertRegistration(long studentId, long courseId) {
+        jdbcTemplate.update("INSERT INTO registration (student_id, course_id, price, registered_date) VALUES (?, ?, ?, ?)",
+                studentId, courseId, 100000L, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Hủy qua RegistrationService để lịch học viên, thống kê và bộ đếm khóa đang học cũng được gỡ
+    void unregister(long studentId, long courseId) {
+        bean(RegistrationService.class).unregisterCourse(courseId, email(studentId));
+    }
+
+    private void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= courses; id++) {
+            LocalDateTime start;
+            LocalDateTime end;
+            if (id <= pastCourses) {
+                start = now.minusDays(60);
+                end = start.plusDays(30);
+            } else if (id < firstUpcomingCourse) {
+                start = now.minusDays(1);
+                end = start.plusDays(30);
+            } else {
+                start = now.plusDays(30).plusHours(6 * (id - firstUpcomingCourse));
+                end = start.plusHours(5);
+            }
+            rows.add(new Object[]{id, "Khóa học " + id, Timestamp.valueOf(start), Timestamp.valueOf(end), 100000L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO course (id, name, start_time, end_time, price, seats_taken) VALUES (?, ?, ?, ?, ?, 0)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= heavyStudentId; id++) {
+            rows.add(new Object[]{id, email(id), "Lee", "Jimin " + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO student (id, email, first_name, last_name) VALUES (?, ?, ?, ?)", rows);
+
+        rows.clear();
+        Timestamp registeredDate = Timestamp.valueOf(now.minusDays(90));
+        for (long studentId = 1; studentId <= students; studentId++) {
+            for (int i = 0; i < registrationsPerStudent && i < pastCourses; i++) {
+                rows.add(new Object[]{studentId, (studentId + i) % pastCourses + 1, 100000L, registeredDate});
+            }
+            if (studentId <= students / 10) {
+                rows.add(new Object[]{studentId, pastCourses + 1L, 100000L, registeredDate});
+                rows.add(new Object[]{studentId, pastCourses + 2L, 100000L, registeredDate});
+            }
+            if (rows.size() >= 10_000) {
+                insertRegistrations(rows);
+            }
+        }
+        for (long courseId = firstUpcomingCourse; courseId < firstUpcomingCourse + heavyUpcoming; courseId++) {
+            rows.add(new Object[]{heavyStudentId, courseId, 100000L, registeredDate});
+        }
+        insertRegistrations(rows);
+    }
+
+    private void insertRegistrations(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO registration (student_id, course_id, price, registered_date) VALUES (?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.coursesystem.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Dữ liệu giống lúc mở đăng ký:
+// - một nửa số khóa đã kết thúc, mỗi học viên có HISTORY_PER_STUDENT đăng ký cũ ở đó
+// - ONGOING_COURSES khóa đang học, 10% học viên đang học 2 khóa (được giảm giá)
+// - còn lại là khóa sắp mở, mỗi khóa một khung giờ riêng để học viên đăng ký nhiều khóa không bị trùng lịch;
+//   hotCourses khóa sắp mở đầu tiên có giới hạn chỗ để mỗi lần đăng ký đều giữ chỗ trên dòng khóa học
+class DatasetSeeder {
+
+    static final int ONGOING_COURSES = 10;
+    private static final int HISTORY_PER_STUDENT = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestConfig config;
+
+    final int pastCourses;
+    final int firstUpcomingCourse;
+
+    DatasetSeeder(JdbcTemplate jdbcTemplate, LoadTestConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.pastCourses = config.courses() / 2;
+        this.firstUpcomingCourse = pastCourses + ONGOING_COURSES + 1;
+        if (config.courses() - firstUpcomingCourse + 1 < config.hotCourses()) {
+            throw new IllegalArgumentException("Không đủ khóa sắp mở cho loadtest.hot-courses");
+        }
+    }
+
+    int upcomingCourses() {
+        return config.courses() - firstUpcomingCourse + 1;
+    }
+
+    static String email(long studentId) {
+        return "student" + studentId + "@gmail.com";
+    }
+
+    void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= config.courses(); id++) {
+            LocalDateTime start;
+            LocalDateTime end;
+            Integer capacity = null;
+            if (id <= pastCourses) {
+                start = now.minusDays(90);
+                end = start.plusDays(30);
+            } else if (id < firstUpcomingCourse) {
+                start = now.minusDays(1);
+                end = start.plusDays(30);
+            } else {
+                start = now.plusDays(30).plusHours(6 * (id - firstUpcomingCourse));
+                end = start.plusHours(5);
+                if (id < firstUpcomingCourse + config.hotCourses()) {
+                    capacity = config.students();
+                }
+            }
+            rows.add(new Object[]{id, "Khóa học " + id, Timestamp.valueOf(start), Timestamp.valueOf(end), 100000L, capacity});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO course (id, name, start_time, end_time, price, capacity, seats_taken) VALUES (?, ?, ?, ?, ?, ?, 0)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= config.students(); id++) {
+            rows.add(new Object[]{id, email(id), "Lee", "Jimin " + id});
+            if (rows.size() == 10_000) {
+                batch("INSERT INTO student (id, email, first_name, last_name) VALUES (?, ?, ?, ?)", rows);
+            }
+        }
+        batch("INSERT INTO student (id, email, first_name, last_name) VALUES (?, ?, ?, ?)", rows);
+
+        String insertRegistration = "INSERT INTO registration (student_id, course_id, price, registered_date) VALUES (?, ?, ?, ?)";
+        Timestamp registeredDate = Timestamp.valueOf(now.minusDays(120));
+        for (long studentId = 1; studentId <= config.students(); studentId++) {
+            for (int i = 0; i < HISTORY_PER_STUDENT && i < pastCourses; i++) {
+                rows.add(new Object[]{studentId, (studentId + i) % pastCourses + 1, 100000L, registeredDate});
+            }
+            if (studentId <= config.students() / 10) {
+                rows.add(new Object[]{studentId, pastCourses + 1L, 100000L, registeredDate});
+                rows.add(new Object[]{studentId, pastCourses + 2L, 100000L, registeredDate});
+            }
+            if (rows.size() >= 10_000) {
+                batch(insertRegistration, rows);
+            }
+        }
+        batch(insertRegistration, rows);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.coursesystem.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Tải dạng open loop: request thứ i được lên lịch gửi lúc start + i / rate, không phụ thuộc request trước đã xong chưa.
+// Khi hệ thống chậm và đã có maxInFlight request đang chờ, request kế tiếp bị gửi trễ; độ trễ "corrected" luôn
+// tính từ thời điểm lẽ ra phải gửi nên phần chờ đó vẫn được đếm (coordinated omission).
+class LoadGenerator {
+
+    enum Operation {
+        REGISTER, UNREGISTER
+    }
+
+    // Kết quả một lần chạy; histogram tính bằng micro giây
+    record Result(Duration elapsed,
+                  Map<Operation, Histogram> corrected,
+                  Map<Operation, Histogram> service,
+                  Map<String, Long> responses) {
+
+        long requests() {
+            return corrected.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+
+        double throughput() {
+            return requests() / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    private record Pair(long studentId, long courseId) {
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final DatasetSeeder dataset;
+    // Các cặp đã đăng ký thành công, là nguồn cho request hủy đăng ký
+    private final Queue<Pair> registered = new ConcurrentLinkedQueue<>();
+
+    LoadGenerator(String baseUrl, LoadTestConfig config, DatasetSeeder dataset) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.dataset = dataset;
+    }
+
+    Result run(Duration duration) {
+        Map<Operation, Recorder> corrected = recorders();
+        Map<Operation, Recorder> service = recorders();
+        Map<String, LongAdder> responses = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            inFlight.acquireUninterruptibly();
+            send(intended, corrected, service, responses, inFlight);
+        }
+        inFlight.acquireUninterruptibly(config.maxInFlight());
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        responses.forEach((key, count) -> counts.put(key, count.sum()));
+        return new Result(Duration.ofNanos(elapsed), histograms(corrected), histograms(service), counts);
+    }
+
+    private void send(long intended, Map<Operation, Recorder> corrected, Map<Operation, Recorder> service,
+                      Map<String, LongAdder> responses, Semaphore inFlight) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Pair pair = random.nextDouble() < config.unregisterShare() ? registered.poll() : null;
+        Operation operation = pair != null ? Operation.UNREGISTER : Operation.REGISTER;
+        if (pair == null) {
+            pair = new Pair(random.nextLong(1, config.students() + 1), randomCourse(random));
+        }
+        Pair target = pair;
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl
+                        + (operation == Operation.REGISTER ? "/api/register/" : "/api/unregister/")
+                        + target.courseId() + "/" + DatasetSeeder.email(target.studentId())))
+                .timeout(Duration.ofMinutes(1));
+        request = operation == Operation.REGISTER ? request.POST(HttpRequest.BodyPublishers.noBody()) : request.DELETE();
+
+        long sent = System.nanoTime();
+        httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long done = System.nanoTime();
+                    corrected.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(done - intended));
+                    service.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(done - sent));
+                    String outcome = error != null ? error.getClass().getSimpleName() : Integer.toString(response.statusCode());
+                    responses.computeIfAbsent(operation.name().toLowerCase(Locale.ROOT) + " " + outcome, key -> new LongAdder()).increment();
+                    if (operation == Operation.REGISTER && response != null && response.statusCode() == 200) {
+                        registered.add(target);
+                    }
+                    inFlight.release();
+                });
+    }
+
+    // hotShare số request dồn vào hotCourses khóa đầu, phần còn lại chia đều cho mọi khóa sắp mở
+    private long randomCourse(ThreadLocalRandom random) {
+        int range = random.nextDouble() < config.hotShare() ? config.hotCourses() : dataset.upcomingCourses();
+        return dataset.firstUpcomingCourse + random.nextInt(range);
+    }
+
+    private static Map<Operation, Recorder> recorders() {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+        }
+        return recorders;
+    }
+
+    private static Map<Operation, Histogram> histograms(Map<Operation, Recorder> recorders) {
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+}
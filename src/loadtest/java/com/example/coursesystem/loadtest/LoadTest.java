@@ -0,0 +1,69 @@
+package com.example.coursesystem.loadtest;
+
+import com.example.coursesystem.CouresesystemApplication;
+import com.example.coursesystem.cache.CourseSearchIndex;
+import com.example.coursesystem.service.CourseStatsService;
+import com.example.coursesystem.service.OngoingCourseScheduler;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+// Chạy toàn bộ ứng dụng (HTTP -> RegistrationController -> RegistrationService -> JPA) trên H2 nhúng,
+// nạp dữ liệu mẫu rồi bắn đăng ký/hủy đăng ký theo tốc độ cố định:
+//   mvn -Ploadtest test-compile exec:exec [-Dloadtest.args="-Dloadtest.rate=500 -Dloadtest.duration=2m"]
+// Tham số (system property):
+//   loadtest.students=10000, loadtest.courses=200, loadtest.hot-courses=5, loadtest.hot-share=0.8,
+//   loadtest.unregister-share=0.3, loadtest.rate=200 (req/s), loadtest.max-in-flight=500,
+//   loadtest.warmup=10s, loadtest.duration=60s, loadtest.report-dir=target/loadtest
+// Mọi request đến từ cùng một IP nên admission control mặc định bị tắt; bật lại bằng
+// -Dregistration.admission.enabled=true. Các thuộc tính khác của ứng dụng cũng ghi đè được theo cách đó.
+public class LoadTest {
+
+    public static void main(String[] args) {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        // devtools nằm trên classpath test; restart của nó chạy ứng dụng trong một luồng khác và làm sai số đo
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        LocalDateTime startedAt = LocalDateTime.now().withNano(0);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CouresesystemApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "registration.admission.enabled=false",
+                        "logging.level.root=WARN",
+                        // Các câu INSERT hàng loạt lúc nạp dữ liệu luôn vượt ngưỡng câu lệnh chậm
+                        "logging.level.com.example.coursesystem.metrics.SlowQueryLogger=ERROR")
+                .run(args);
+        try {
+            DatasetSeeder dataset = new DatasetSeeder(context.getBean(JdbcTemplate.class), config);
+            dataset.seed();
+            // Dữ liệu được insert thẳng bằng JDBC: tạo thống kê, số khóa đang học và chỉ mục tìm kiếm tương ứng
+            context.getBean(CourseStatsService.class).rebuild();
+            context.getBean(OngoingCourseScheduler.class).advance();
+            context.getBean(CourseSearchIndex.class).rebuild();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator("http://localhost:" + port, config, dataset);
+            if (!config.warmup().isZero()) {
+                generator.run(config.warmup());
+            }
+            LoadGenerator.Result result = generator.run(config.duration());
+
+            String mode = Threading.VIRTUAL.isActive(context.getEnvironment()) ? "virtual threads" : "platform threads";
+            LoadTestReport report = new LoadTestReport(config, mode, startedAt);
+            Path dir = report.write(result);
+            report.writeSummary(System.out, result);
+            System.out.printf("%nReport: %s%n", dir.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+}
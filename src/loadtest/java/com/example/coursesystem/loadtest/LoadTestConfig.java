@@ -0,0 +1,40 @@
+package com.example.coursesystem.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Tham số đọc từ system property loadtest.* (xem LoadTest)
+record LoadTestConfig(int students,
+                      int courses,
+                      int hotCourses,
+                      double hotShare,
+                      double unregisterShare,
+                      double rate,
+                      int maxInFlight,
+                      Duration warmup,
+                      Duration duration,
+                      Path reportDir) {
+
+    static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig(
+                Integer.getInteger("loadtest.students", 10_000),
+                Integer.getInteger("loadtest.courses", 200),
+                Integer.getInteger("loadtest.hot-courses", 5),
+                Double.parseDouble(System.getProperty("loadtest.hot-share", "0.8")),
+                Double.parseDouble(System.getProperty("loadtest.unregister-share", "0.3")),
+                Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+                Integer.getInteger("loadtest.max-in-flight", 500),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+        if (config.hotCourses() < 1 || config.hotCourses() > config.courses()) {
+            throw new IllegalArgumentException("loadtest.hot-courses phải nằm trong [1, loadtest.courses]");
+        }
+        if (config.rate() <= 0 || config.maxInFlight() < 1) {
+            throw new IllegalArgumentException("loadtest.rate và loadtest.max-in-flight phải lớn hơn 0");
+        }
+        return config;
+    }
+}
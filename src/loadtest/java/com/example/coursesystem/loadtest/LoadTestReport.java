@@ -0,0 +1,119 @@
+package com.example.coursesystem.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Mỗi lần chạy ghi vào reportDir/<thời điểm>/:
+// - report.txt: cấu hình, throughput, số response theo mã, bảng percentile (ms)
+// - <operation>.hgrm và <operation>-service.hgrm: phân phối đầy đủ theo định dạng của HdrHistogram,
+//   mở được bằng HistogramLogAnalyzer / hdrhistogram.github.io/HdrHistogram/plotFiles.html để chồng nhiều bản lên nhau
+// và thêm một dòng vào reportDir/summary.csv để so sánh giữa các bản phát hành
+class LoadTestReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadTestConfig config;
+    private final String mode;
+    private final LocalDateTime startedAt;
+
+    LoadTestReport(LoadTestConfig config, String mode, LocalDateTime startedAt) {
+        this.config = config;
+        this.mode = mode;
+        this.startedAt = startedAt;
+    }
+
+    Path write(LoadGenerator.Result result) {
+        Path dir = config.reportDir().resolve(startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        try {
+            Files.createDirectories(dir);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve("report.txt")), true, StandardCharsets.UTF_8)) {
+                writeSummary(out, result);
+            }
+            for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+                String name = operation.name().toLowerCase(Locale.ROOT);
+                writeDistribution(dir.resolve(name + ".hgrm"), result.corrected().get(operation));
+                writeDistribution(dir.resolve(name + "-service.hgrm"), result.service().get(operation));
+            }
+            appendCsv(config.reportDir().resolve("summary.csv"), result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dir;
+    }
+
+    void writeSummary(PrintStream out, LoadGenerator.Result result) {
+        out.printf("Load test %s%n", startedAt);
+        out.printf("Java %s, %d CPU, %s%n", System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(), mode);
+        out.printf("Dataset: %d students, %d courses (%d hot, %.0f%% of registrations)%n",
+                config.students(), config.courses(), config.hotCourses(), config.hotShare() * 100);
+        out.printf("Load: %.0f req/s target, %.0f%% unregister, max %d in flight, %d s warmup, %d s measured%n",
+                config.rate(), config.unregisterShare() * 100, config.maxInFlight(), config.warmup().toSeconds(), config.duration().toSeconds());
+        out.printf("%nThroughput: %d requests in %.1f s = %.1f req/s%n",
+                result.requests(), result.elapsed().toNanos() / 1e9, result.throughput());
+
+        out.printf("%nResponses%n");
+        new TreeMap<>(result.responses()).forEach((outcome, count) -> out.printf("  %-30s %d%n", outcome, count));
+
+        out.printf("%nLatency (ms) from intended send time, corrected for coordinated omission%n");
+        writeTable(out, result.corrected());
+        out.printf("%nService time (ms) from actual send time%n");
+        writeTable(out, result.service());
+    }
+
+    private static void writeTable(PrintStream out, Map<LoadGenerator.Operation, Histogram> histograms) {
+        out.printf("  %-12s %8s", "operation", "count");
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9s", "p" + format(percentile));
+        }
+        out.printf(" %9s%n", "max");
+        histograms.forEach((operation, histogram) -> {
+            out.printf("  %-12s %8d", operation.name().toLowerCase(Locale.ROOT), histogram.getTotalCount());
+            for (double percentile : PERCENTILES) {
+                out.printf(" %9.1f", histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+            }
+            out.printf(" %9.1f%n", histogram.getMaxValue() / MICROS_PER_MILLI);
+        });
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private void appendCsv(Path file, LoadGenerator.Result result) throws IOException {
+        StringBuilder line = new StringBuilder();
+        if (Files.notExists(file)) {
+            line.append("started_at,mode,rate,duration_s,throughput,register_p50_ms,register_p99_ms,register_p999_ms,")
+                    .append("unregister_p50_ms,unregister_p99_ms,unregister_p999_ms\n");
+        }
+        line.append(startedAt).append(',').append(mode).append(',').append(format(config.rate()))
+                .append(',').append(config.duration().toSeconds())
+                .append(',').append(String.format(Locale.ROOT, "%.1f", result.throughput()));
+        for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+            Histogram histogram = result.corrected().get(operation);
+            for (double percentile : new double[]{50, 99, 99.9}) {
+                line.append(',').append(String.format(Locale.ROOT, "%.1f", histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+            }
+        }
+        line.append('\n');
+        Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
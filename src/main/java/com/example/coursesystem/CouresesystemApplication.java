@@ -1,13 +1,35 @@
 package com.example.coursesystem;
 
+import com.example.coursesystem.cache.CourseCache;
+import com.example.coursesystem.cache.StudentIdCache;
+import com.example.coursesystem.cache.StudentScheduleCache;
+import com.example.coursesystem.controller.RegistrationController;
+import com.example.coursesystem.service.BulkRegistrationService;
+import com.example.coursesystem.service.CourseStatsService;
+import com.example.coursesystem.service.OngoingCourseCounter;
+import com.example.coursesystem.service.RegistrationDeduplicator;
+import com.example.coursesystem.service.RegistrationService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CouresesystemApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(CouresesystemApplication.class, args);
     }
 
+    // Khi bật spring.main.lazy-initialization (profile prod), đường đăng ký vẫn được tạo lúc khởi động
+    // để request đầu tiên không phải chờ khởi tạo JPA, repository và các cache
+    @Bean
+    static LazyInitializationExcludeFilter registrationPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(RegistrationController.class, RegistrationDeduplicator.class,
+                RegistrationService.class, BulkRegistrationService.class, CourseCache.class, StudentIdCache.class,
+                StudentScheduleCache.class, OngoingCourseCounter.class, CourseStatsService.class);
+    }
+
 }
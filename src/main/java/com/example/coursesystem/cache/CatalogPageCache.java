@@ -0,0 +1,55 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.datasource.ReadWriteRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Cache JSON đã serialize của các trang danh mục, gắn với CatalogVersion lúc dựng.
+// Trang hợp lệ khi phiên bản chưa đổi, nên If-None-Match khớp thì trả 304 mà không chạm database.
+// ETag là hash nội dung để các instance khác nhau trả cùng ETag cho cùng dữ liệu; thay đổi từ instance
+// khác không tăng phiên bản ở đây nên trang vẫn hết hạn theo TTL như CourseCache.
+@Component
+public class CatalogPageCache {
+
+    private final CatalogVersion catalogVersion;
+    private final Cache<String, Page> pages;
+
+    @Autowired
+    public CatalogPageCache(CatalogVersion catalogVersion, MeterRegistry meterRegistry,
+                            @Value("${catalog.page-cache.max-size:1000}") long maxSize,
+                            @Value("${course.cache.ttl:5m}") Duration ttl) {
+        this.catalogVersion = catalogVersion;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalogPages");
+    }
+
+    public Page get(String key, Supplier<byte[]> render) {
+        // Đọc phiên bản trước khi dựng: nếu có thay đổi trong lúc dựng thì lần sau sẽ dựng lại
+        long version = catalogVersion.current();
+        Page page = pages.getIfPresent(key);
+        if (page != null && page.version() == version) {
+            return page;
+        }
+        // Dựng lại ngay sau thay đổi nên đọc từ primary, tránh cache dữ liệu cũ của replica tới hết TTL
+        byte[] body = ReadWriteRoutingDataSource.onPrimary(render);
+        page = new Page(version, "\"" + DigestUtils.md5DigestAsHex(body) + "\"", body);
+        pages.put(key, page);
+        return page;
+    }
+
+    public record Page(long version, String etag, byte[] body) {
+    }
+}
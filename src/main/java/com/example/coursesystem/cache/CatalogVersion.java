@@ -0,0 +1,32 @@
+package com.example.coursesystem.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Phiên bản danh mục khóa học: tăng khi Course được thêm/sửa/xóa (CourseCacheInvalidator)
+// và khi khóa học bắt đầu, tức rời danh sách sắp mở (OngoingCourseCounter.advance).
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+        // Tăng lần nữa sau commit để trang được dựng trong lúc transaction chưa xong không được dùng tiếp
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.datasource.ReadWriteRoutingDataSource;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.repository.CourseRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Cache danh mục khóa học. Thay đổi Course chỉ xóa cache của instance đã ghi (sau commit); instance khác
+// vẫn có thể giữ startTime/endTime cũ tới hết course.cache.ttl. Vì vậy các quyết định theo lịch khóa học
+// (đăng ký, hủy đăng ký) đọc lịch từ database, cache chỉ dùng để hiển thị và chọn thông báo lỗi.
+// seatsTaken có thể trễ vì claimSeat/releaseSeat là UPDATE hàng loạt; quyết định giữ chỗ luôn nằm ở database.
+// Cache được nạp lại ngay sau khi ghi nên đọc từ primary, tránh giữ dữ liệu cũ của replica tới hết TTL.
+// Lần nạp trùng với một lần xóa (generation đổi) thì không được đưa vào cache; cache giữ bản sao tách khỏi
+// persistence context để thay đổi trên entity đang được quản lý không lọt vào cache.
+@Component
+public class CourseCache {
+
+    private static final String UPCOMING_KEY = "upcoming";
+
+    private final CourseRepository courseRepository;
+    private final Cache<Long, Course> courses;
+    private final Cache<String, UpcomingSnapshot> upcoming;
+    // Chỉ một luồng nạp snapshot. Không nạp bên trong Cache.get: hàm nạp chạy trong khóa synchronized
+    // của ConcurrentHashMap và sẽ ghim virtual thread trong suốt truy vấn.
+    private final ReentrantLock upcomingLoad = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public CourseCache(CourseRepository courseRepository, MeterRegistry meterRegistry,
+                       @Value("${course.cache.max-size:10000}") long maxSize,
+                       @Value("${course.cache.ttl:5m}") Duration ttl) {
+        this.courseRepository = courseRepository;
+        this.courses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.upcoming = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, courses, "courses");
+        CaffeineCacheMetrics.monitor(meterRegistry, upcoming, "upcomingCourses");
+    }
+
+    public Optional<Course> findById(Long id) {
+        Course course = courses.getIfPresent(id);
+        if (course != null) {
+            return Optional.of(course);
+        }
+        long before = generation.get();
+        Optional<Course> loaded = ReadWriteRoutingDataSource.onPrimary(() -> courseRepository.findById(id)).map(CourseCache::copyOf);
+        loaded.ifPresent(value -> {
+            courses.put(id, value);
+            // Bị xóa trong lúc nạp: giá trị vừa đọc có thể đã cũ
+            if (generation.get() != before) {
+                courses.invalidate(id);
+            }
+        });
+        return loaded;
+    }
+
+    public List<Course> findByStartTimeAfter(LocalDateTime dateTime) {
+        UpcomingSnapshot snapshot = upcoming.getIfPresent(UPCOMING_KEY);
+        if (snapshot == null) {
+            snapshot = loadUpcoming(dateTime);
+        }
+        // Snapshot chỉ chứa các khóa bắt đầu sau mốc nạp
+        if (dateTime.isBefore(snapshot.from())) {
+            return courseRepository.findByStartTimeAfter(dateTime);
+        }
+        return snapshot.courses().stream()
+                .filter(course -> course.getStartTime().isAfter(dateTime))
+                .toList();
+    }
+
+    private UpcomingSnapshot loadUpcoming(LocalDateTime dateTime) {
+        upcomingLoad.lock();
+        try {
+            UpcomingSnapshot snapshot = upcoming.getIfPresent(UPCOMING_KEY);
+            if (snapshot == null) {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime from = dateTime.isBefore(now) ? dateTime : now;
+                long before = generation.get();
+                List<Course> loaded = ReadWriteRoutingDataSource.onPrimary(() -> courseRepository.findByStartTimeAfter(from));
+                snapshot = new UpcomingSnapshot(from, loaded.stream().map(CourseCache::copyOf).toList());
+                upcoming.put(UPCOMING_KEY, snapshot);
+                if (generation.get() != before) {
+                    upcoming.invalidateAll();
+                }
+            }
+            return snapshot;
+        } finally {
+            upcomingLoad.unlock();
+        }
+    }
+
+    public void evict(Long id) {
+        generation.incrementAndGet();
+        courses.invalidate(id);
+        upcoming.invalidateAll();
+        // Xóa lần nữa sau commit để không giữ lại giá trị cũ được đọc trong lúc transaction chưa xong
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    courses.invalidate(id);
+                    upcoming.invalidateAll();
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        courses.invalidateAll();
+        upcoming.invalidateAll();
+    }
+
+    private static Course copyOf(Course course) {
+        return Course.builder()
+                .id(course.getId())
+                .name(course.getName())
+                .startTime(course.getStartTime())
+                .endTime(course.getEndTime())
+                .price(course.getPrice())
+                .capacity(course.getCapacity())
+                .seatsTaken(course.getSeatsTaken())
+                .phase(course.getPhase())
+                .build();
+    }
+
+    private record UpcomingSnapshot(LocalDateTime from, List<Course> courses) {
+    }
+}
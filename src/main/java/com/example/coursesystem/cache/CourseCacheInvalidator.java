@@ -0,0 +1,32 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.model.Course;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Entity listener do Hibernate tạo qua SpringBeanContainer; ObjectProvider để chạy được cả khi không có CourseCache (test slice)
+public class CourseCacheInvalidator {
+
+    private final ObjectProvider<CourseCache> courseCache;
+    private final ObjectProvider<CatalogVersion> catalogVersion;
+    private final ObjectProvider<StudentScheduleCache> studentScheduleCache;
+
+    public CourseCacheInvalidator(ObjectProvider<CourseCache> courseCache, ObjectProvider<CatalogVersion> catalogVersion,
+                                  ObjectProvider<StudentScheduleCache> studentScheduleCache) {
+        this.courseCache = courseCache;
+        this.catalogVersion = catalogVersion;
+        this.studentScheduleCache = studentScheduleCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onChange(Course course) {
+        courseCache.ifAvailable(cache -> cache.evict(course.getId()));
+        catalogVersion.ifAvailable(CatalogVersion::bump);
+        // Giờ học có thể đã đổi; thay đổi khóa học hiếm nên xóa hết lịch học viên
+        studentScheduleCache.ifAvailable(StudentScheduleCache::invalidateAll);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.dto.CourseSummary;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Chỉ mục tìm kiếm khóa học trong bộ nhớ: từ (đã bỏ dấu, chữ thường) -> id khóa học, sắp theo thứ tự từ điển
+// nên tìm theo tiền tố là một subMap; thêm một tập sắp theo startTime cho lọc theo khoảng thời gian.
+// Được dựng lúc khởi động, cập nhật theo từng khóa học sau commit (CourseSearchIndexListener) và dựng lại định kỳ
+// để thấy thay đổi từ instance khác.
+@Component
+public class CourseSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSearchIndex.class);
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<CourseSummary> BY_START = Comparator.comparing(CourseSummary::getStartTime)
+            .thenComparing(CourseSummary::getId);
+
+    private final CourseRepository courseRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong changes = new AtomicLong();
+
+    private Map<Long, CourseSummary> courses = new HashMap<>();
+    private TreeMap<String, Set<Long>> tokens = new TreeMap<>();
+    private NavigableSet<CourseSummary> byStart = new TreeSet<>(BY_START);
+
+    @Autowired
+    public CourseSearchIndex(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${course.search.refresh-interval:5m}", initialDelayString = "${course.search.refresh-interval:5m}")
+    public void rebuild() {
+        long changesBefore = changes.get();
+        List<CourseSummary> loaded = courseRepository.findAllSummaries();
+
+        Map<Long, CourseSummary> newCourses = new HashMap<>();
+        TreeMap<String, Set<Long>> newTokens = new TreeMap<>();
+        NavigableSet<CourseSummary> newByStart = new TreeSet<>(BY_START);
+        for (CourseSummary course : loaded) {
+            add(course, newCourses, newTokens, newByStart);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Có cập nhật lẻ trong lúc nạp: dữ liệu vừa nạp có thể cũ hơn chỉ mục hiện tại, để lần sau dựng lại
+            if (changes.get() != changesBefore) {
+                log.info("Bỏ qua lần dựng lại chỉ mục tìm kiếm vì khóa học vừa thay đổi");
+                return;
+            }
+            courses = newCourses;
+            tokens = newTokens;
+            byStart = newByStart;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Course course) {
+        CourseSummary summary = new CourseSummary(course.getId(), course.getName(), course.getStartTime(), course.getEndTime(), course.getPrice());
+        lock.writeLock().lock();
+        try {
+            changes.incrementAndGet();
+            remove(course.getId(), courses, tokens, byStart);
+            add(summary, courses, tokens, byStart);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long courseId) {
+        lock.writeLock().lock();
+        try {
+            changes.incrementAndGet();
+            remove(courseId, courses, tokens, byStart);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Mỗi từ trong query khớp với tiền tố của một từ trong tên khóa học; các điều kiện còn lại có thể null
+    public List<CourseSummary> search(String query, LocalDateTime from, LocalDateTime to, Long minPrice, Long maxPrice, int limit) {
+        List<String> terms = tokenize(query);
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty()) {
+                List<CourseSummary> result = new ArrayList<>();
+                for (CourseSummary course : range(from, to)) {
+                    if (result.size() == limit) {
+                        break;
+                    }
+                    if (priceMatches(course, minPrice, maxPrice)) {
+                        result.add(course);
+                    }
+                }
+                return result;
+            }
+
+            Set<Long> candidates = null;
+            for (String term : terms) {
+                Set<Long> matches = new HashSet<>();
+                tokens.subMap(term, true, term + Character.MAX_VALUE, false).values().forEach(matches::addAll);
+                if (candidates == null) {
+                    candidates = matches;
+                } else {
+                    candidates.retainAll(matches);
+                }
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return candidates.stream()
+                    .map(courses::get)
+                    .filter(course -> (from == null || !course.getStartTime().isBefore(from))
+                            && (to == null || course.getStartTime().isBefore(to))
+                            && priceMatches(course, minPrice, maxPrice))
+                    .sorted(BY_START)
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Chữ thường, bỏ dấu tiếng Việt (kể cả đ -> d), tách theo ký tự không phải chữ/số
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        normalized = COMBINING_MARKS.matcher(normalized).replaceAll("").replace('đ', 'd');
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private Iterable<CourseSummary> range(LocalDateTime from, LocalDateTime to) {
+        NavigableSet<CourseSummary> view = byStart;
+        if (from != null) {
+            view = view.tailSet(new CourseSummary(Long.MIN_VALUE, null, from, null, null), true);
+        }
+        if (to != null) {
+            view = view.headSet(new CourseSummary(Long.MIN_VALUE, null, to, null, null), false);
+        }
+        return view;
+    }
+
+    private static boolean priceMatches(CourseSummary course, Long minPrice, Long maxPrice) {
+        return (minPrice == null || course.getPrice() >= minPrice)
+                && (maxPrice == null || course.getPrice() <= maxPrice);
+    }
+
+    private static void add(CourseSummary course, Map<Long, CourseSummary> courses,
+                            TreeMap<String, Set<Long>> tokens, NavigableSet<CourseSummary> byStart) {
+        courses.put(course.getId(), course);
+        byStart.add(course);
+        for (String token : tokenize(course.getName())) {
+            tokens.computeIfAbsent(token, key -> new HashSet<>()).add(course.getId());
+        }
+    }
+
+    private static void remove(Long courseId, Map<Long, CourseSummary> courses,
+                               TreeMap<String, Set<Long>> tokens, NavigableSet<CourseSummary> byStart) {
+        CourseSummary existing = courses.remove(courseId);
+        if (existing == null) {
+            return;
+        }
+        byStart.remove(existing);
+        for (String token : tokenize(existing.getName())) {
+            Set<Long> ids = tokens.get(token);
+            ids.remove(courseId);
+            if (ids.isEmpty()) {
+                tokens.remove(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.model.Course;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Cập nhật chỉ mục tìm kiếm sau commit để không tìm thấy khóa học của transaction bị rollback
+public class CourseSearchIndexListener {
+
+    private final ObjectProvider<CourseSearchIndex> searchIndex;
+
+    public CourseSearchIndexListener(ObjectProvider<CourseSearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onSave(Course course) {
+        searchIndex.ifAvailable(index -> afterCommit(() -> index.put(course)));
+    }
+
+    @PostRemove
+    void onRemove(Course course) {
+        Long id = course.getId();
+        searchIndex.ifAvailable(index -> afterCommit(() -> index.remove(id)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
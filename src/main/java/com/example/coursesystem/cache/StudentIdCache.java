@@ -0,0 +1,97 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.repository.StudentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache email -> id học viên; không lưu email không tồn tại nên học viên mới không cần xóa cache.
+// emailsById là chỉ mục ngược để xóa theo id không phải duyệt cả cache; mục bị loại khỏi chỉ mục
+// thì các email tương ứng cũng bị xóa, nên không có email nào trong cache mà xóa theo id không tìm thấy.
+// Lần nạp trùng với một lần xóa (generation đổi) thì không được giữ lại trong cache, như CourseCache
+@Component
+public class StudentIdCache {
+
+    private final StudentRepository studentRepository;
+    private final Cache<String, Long> studentIds;
+    private final Cache<Long, Set<String>> emailsById;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public StudentIdCache(StudentRepository studentRepository, MeterRegistry meterRegistry,
+                          @Value("${student.cache.max-size:100000}") long maxSize,
+                          @Value("${student.cache.ttl:30m}") Duration ttl) {
+        this.studentRepository = studentRepository;
+        this.studentIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.emailsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .<Long, Set<String>>evictionListener((id, emails, cause) -> {
+                    if (emails != null) {
+                        studentIds.invalidateAll(emails);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, studentIds, "studentIds");
+    }
+
+    public Optional<Long> findIdByEmail(String email) {
+        Long id = studentIds.getIfPresent(email);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        long before = generation.get();
+        Optional<Long> loaded = studentRepository.findIdByEmail(email);
+        loaded.ifPresent(value -> {
+            // Cùng một học viên có thể được tra bằng nhiều cách viết email
+            emailsById.asMap().compute(value, (studentId, emails) -> {
+                Set<String> updated = emails != null ? emails : ConcurrentHashMap.newKeySet();
+                updated.add(email);
+                return updated;
+            });
+            studentIds.put(email, value);
+            // Bị xóa trong lúc nạp: email vừa đọc có thể đã đổi
+            if (generation.get() != before) {
+                removeById(value);
+            }
+        });
+        return loaded;
+    }
+
+    // Email cũ không còn trên entity sau khi cập nhật nên xóa theo id
+    public void evict(Long id) {
+        removeById(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeById(id);
+                }
+            });
+        }
+    }
+
+    private void removeById(Long id) {
+        generation.incrementAndGet();
+        Set<String> emails = emailsById.asMap().remove(id);
+        if (emails != null) {
+            studentIds.invalidateAll(emails);
+        }
+    }
+}
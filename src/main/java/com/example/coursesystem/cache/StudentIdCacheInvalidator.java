@@ -0,0 +1,21 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.model.Student;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+public class StudentIdCacheInvalidator {
+
+    private final ObjectProvider<StudentIdCache> studentIdCache;
+
+    public StudentIdCacheInvalidator(ObjectProvider<StudentIdCache> studentIdCache) {
+        this.studentIdCache = studentIdCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void onChange(Student student) {
+        studentIdCache.ifAvailable(cache -> cache.evict(student.getId()));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.dto.ScheduleSlot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Lịch học của một học viên: các khoảng [startTime, endTime) không chồng nhau, sắp theo startTime.
+// Vì không chồng nhau, khoảng duy nhất có thể chồng lên [start, end) là khoảng bắt đầu gần nhất trước end,
+// nên mỗi lần kiểm tra là một lần tìm trên TreeMap: O(log n).
+// Dùng ReentrantLock thay cho synchronized để virtual thread không bị ghim vào carrier thread.
+// version là Student.scheduleVersion mà lịch này phản ánh.
+public class StudentSchedule {
+
+    public record Slot(LocalDateTime start, LocalDateTime end, List<Long> courseIds) {
+    }
+
+    private final TreeMap<LocalDateTime, Slot> slots = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long version;
+
+    public static StudentSchedule of(List<ScheduleSlot> rows) {
+        return of(rows, 0);
+    }
+
+    // Dữ liệu cũ có thể đã có các khóa trùng lịch: gộp chúng thành một khoảng để giữ tính không chồng nhau
+    public static StudentSchedule of(List<ScheduleSlot> rows, long version) {
+        StudentSchedule schedule = new StudentSchedule();
+        schedule.version = version;
+        List<ScheduleSlot> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(ScheduleSlot::getStartTime));
+        Slot current = null;
+        for (ScheduleSlot row : sorted) {
+            if (current != null && row.getStartTime().isBefore(current.end())) {
+                current.courseIds().add(row.getCourseId());
+                if (row.getEndTime().isAfter(current.end())) {
+                    current = new Slot(current.start(), row.getEndTime(), current.courseIds());
+                }
+            } else {
+                if (current != null) {
+                    schedule.slots.put(current.start(), current);
+                }
+                current = new Slot(row.getStartTime(), row.getEndTime(), new ArrayList<>(List.of(row.getCourseId())));
+            }
+        }
+        if (current != null) {
+            schedule.slots.put(current.start(), current);
+        }
+        return schedule;
+    }
+
+    // Khoảng chồng lên [start, end), null nếu không có
+    public Slot overlapping(LocalDateTime start, LocalDateTime end) {
+        lock.lock();
+        try {
+            return findOverlapping(start, end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Chỉ gọi sau khi overlapping() trả về null
+    public void add(Long courseId, LocalDateTime start, LocalDateTime end) {
+        lock.lock();
+        try {
+            slots.put(start, new Slot(start, end, List.of(courseId)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Kiểm tra và thêm trong cùng một lần giữ khóa; trả về khoảng bị trùng (khi đó không thêm gì), null nếu đã thêm
+    public Slot addIfFree(Long courseId, LocalDateTime start, LocalDateTime end) {
+        lock.lock();
+        try {
+            Slot slot = findOverlapping(start, end);
+            if (slot == null) {
+                slots.put(start, new Slot(start, end, List.of(courseId)));
+            }
+            return slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // false nếu khóa học nằm trong một khoảng đã gộp: không tách lại được, người gọi nên nạp lại lịch
+    public boolean remove(Long courseId, LocalDateTime start) {
+        lock.lock();
+        try {
+            Slot slot = slots.get(start);
+            if (slot == null || !slot.courseIds().contains(courseId)) {
+                return findOverlapping(start, start.plusNanos(1)) == null;
+            }
+            if (slot.courseIds().size() > 1) {
+                return false;
+            }
+            slots.remove(start);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long version() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Đăng ký đã commit và tăng version trong database: lịch vẫn đúng nếu trước đó nó ở version expected
+    public boolean advanceVersion(long expected, long next) {
+        lock.lock();
+        try {
+            if (version != expected) {
+                return false;
+            }
+            version = next;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Slot findOverlapping(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Slot> before = slots.lowerEntry(end);
+        if (before == null || !before.getValue().end().isAfter(start)) {
+            return null;
+        }
+        return before.getValue();
+    }
+}
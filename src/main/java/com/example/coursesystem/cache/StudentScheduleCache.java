@@ -0,0 +1,237 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.dto.ScheduleSlot;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.RegistrationId;
+import com.example.coursesystem.repository.RegistrationRepository;
+import com.example.coursesystem.repository.StudentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Lịch học theo học viên để chặn đăng ký trùng lịch mà không phải tải mọi đăng ký mỗi lần.
+// Chỉ nạp các khóa chưa kết thúc: khóa mới luôn chưa bắt đầu nên không thể trùng với khóa đã kết thúc.
+// Khóa học được giữ chỗ trong lịch ngay khi kiểm tra và gỡ lại nếu transaction không commit.
+// Đăng ký/hủy đăng ký ở instance khác được thấy qua Student.scheduleVersion: version đọc trong transaction
+// khác version của lịch trong cache thì lịch được nạp lại; confirm() chỉ tăng version nếu nó chưa đổi kể từ
+// lần đọc, nếu đã đổi thì kiểm tra lại với database. Đổi giờ học của khóa học ở instance khác vẫn chỉ được
+// thấy sau TTL.
+@Component
+public class StudentScheduleCache {
+
+    private static final String ADVANCE_VERSION =
+            "UPDATE student SET schedule_version = schedule_version + 1 WHERE id = ? AND schedule_version = ?";
+    private static final String INCREMENT_VERSION =
+            "UPDATE student SET schedule_version = schedule_version + 1 WHERE id = ?";
+
+    private final RegistrationRepository registrationRepository;
+    private final StudentRepository studentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, StudentSchedule> schedules;
+
+    @Autowired
+    public StudentScheduleCache(RegistrationRepository registrationRepository, StudentRepository studentRepository,
+                                JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                @Value("${schedule.cache.max-size:100000}") long maxSize,
+                                @Value("${schedule.cache.ttl:10m}") Duration ttl) {
+        this.registrationRepository = registrationRepository;
+        this.studentRepository = studentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, schedules, "studentSchedules");
+    }
+
+    // version: Student.scheduleVersion đọc trong transaction hiện tại, trước khi đọc lịch.
+    // Ném IllegalArgumentException nếu trùng lịch. Đăng ký lại đúng khóa đã có thì bỏ qua để INSERT báo trùng.
+    public void reserve(Long studentId, long version, Course course) {
+        StudentSchedule schedule = schedule(studentId, version);
+        StudentSchedule.Slot slot = schedule.addIfFree(course.getId(), course.getStartTime(), course.getEndTime());
+        if (slot != null) {
+            if (slot.courseIds().contains(course.getId())) {
+                return;
+            }
+            throw new IllegalArgumentException("Trùng lịch với khóa học đã đăng ký");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        schedule.remove(course.getId(), course.getStartTime());
+                    }
+                }
+            });
+        }
+    }
+
+    public void confirm(Long studentId, long version, Course course) {
+        if (!confirm(Map.of(studentId, version), Map.of(studentId, List.of(course))).isEmpty()) {
+            throw new IllegalArgumentException("Trùng lịch với khóa học đã đăng ký");
+        }
+    }
+
+    // Sau reserve(): tăng version lịch của từng học viên trong cùng transaction với INSERT (một batch cho cả lô).
+    // Học viên có version đã đổi kể từ lúc đọc được kiểm tra lại với lịch trong database; trả về các đăng ký
+    // bị trùng lịch, người gọi phải từ chối chúng.
+    public Set<RegistrationId> confirm(Map<Long, Long> versions, Map<Long, List<Course>> reserved) {
+        // Theo thứ tự id để các transaction đồng thời khóa dòng học viên cùng một thứ tự
+        List<Long> studentIds = new ArrayList<>(new TreeMap<>(reserved).keySet());
+        int[] updated = advanceVersions(studentIds, versions);
+        Set<RegistrationId> conflicts = new HashSet<>();
+        for (int i = 0; i < studentIds.size(); i++) {
+            Long studentId = studentIds.get(i);
+            if (updated[i] > 0) {
+                long version = versions.get(studentId);
+                afterCompletion(true, () -> {
+                    StudentSchedule schedule = schedules.getIfPresent(studentId);
+                    if (schedule != null && !schedule.advanceVersion(version, version + 1)) {
+                        schedules.invalidate(studentId);
+                    }
+                });
+            } else {
+                conflicts.addAll(recheck(studentId, reserved.get(studentId)));
+                afterCompletion(false, () -> schedules.invalidate(studentId));
+            }
+        }
+        return conflicts;
+    }
+
+    // Bỏ giữ chỗ của một đăng ký không được ghi (ví dụ khóa học hết chỗ khi giữ chỗ cả lô)
+    public void release(Long studentId, Course course) {
+        remove(studentId, course);
+    }
+
+    // Version tăng cùng transaction với DELETE để instance khác nạp lại lịch. Gỡ khỏi cache sau commit:
+    // gỡ sớm rồi rollback thì lịch sẽ thiếu khóa học vẫn còn đăng ký
+    public void registrationRemoved(Long studentId, Course course) {
+        jdbcTemplate.update(INCREMENT_VERSION, studentId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(studentId, course);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(studentId, course);
+            }
+        });
+    }
+
+    // Đăng ký theo lô: nạp bằng một truy vấn lịch của mọi học viên chưa có trong cache hoặc có version cũ
+    public void preload(Map<Long, Long> versions) {
+        List<Long> missing = versions.entrySet().stream()
+                .filter(entry -> !isCurrent(schedules.getIfPresent(entry.getKey()), entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, List<ScheduleSlot>> rows = registrationRepository.findScheduleSlots(missing, LocalDateTime.now()).stream()
+                .collect(Collectors.groupingBy(ScheduleSlot::getStudentId));
+        for (Long id : missing) {
+            store(id, StudentSchedule.of(rows.getOrDefault(id, List.of()), versions.get(id)));
+        }
+    }
+
+    // Giờ học của khóa học thay đổi: mọi lịch có thể đã cũ
+    public void invalidateAll() {
+        schedules.invalidateAll();
+    }
+
+    private StudentSchedule schedule(Long studentId, long version) {
+        StudentSchedule schedule = schedules.getIfPresent(studentId);
+        if (isCurrent(schedule, version)) {
+            return schedule;
+        }
+        return store(studentId, load(studentId, version));
+    }
+
+    private StudentSchedule load(Long studentId, long version) {
+        return StudentSchedule.of(registrationRepository.findScheduleSlots(List.of(studentId), LocalDateTime.now()), version);
+    }
+
+    // Hai luồng cùng nạp: dùng chung một đối tượng để khóa đồng bộ có tác dụng; lịch cũ hơn thì bị thay
+    private StudentSchedule store(Long studentId, StudentSchedule loaded) {
+        return schedules.asMap().merge(studentId, loaded,
+                (existing, fresh) -> existing.version() == fresh.version() ? existing : fresh);
+    }
+
+    private static boolean isCurrent(StudentSchedule schedule, long version) {
+        return schedule != null && schedule.version() == version;
+    }
+
+    // Đọc version trước rồi mới đọc lịch: thay đổi nào commit sau lần đọc version sẽ làm lần tăng version thất bại
+    private Set<RegistrationId> recheck(Long studentId, List<Course> courses) {
+        Set<RegistrationId> conflicts = new HashSet<>();
+        List<Course> pending = new ArrayList<>(courses);
+        while (!pending.isEmpty()) {
+            long version = studentRepository.findScheduleVersion(studentId).orElse(0L);
+            StudentSchedule stored = load(studentId, version);
+            pending.removeIf(course -> {
+                StudentSchedule.Slot slot = stored.overlapping(course.getStartTime(), course.getEndTime());
+                if (slot != null && !slot.courseIds().contains(course.getId())) {
+                    conflicts.add(new RegistrationId(studentId, course.getId()));
+                    return true;
+                }
+                return false;
+            });
+            if (pending.isEmpty() || advanceVersions(List.of(studentId), Map.of(studentId, version))[0] > 0) {
+                break;
+            }
+        }
+        return conflicts;
+    }
+
+    private int[] advanceVersions(List<Long> studentIds, Map<Long, Long> versions) {
+        if (studentIds.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(ADVANCE_VERSION, studentIds, studentIds.size(), (ps, studentId) -> {
+            ps.setLong(1, studentId);
+            ps.setLong(2, versions.get(studentId));
+        })[0];
+    }
+
+    private static void afterCompletion(boolean onlyOnCommit, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (!onlyOnCommit || status == STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void remove(Long studentId, Course course) {
+        StudentSchedule schedule = schedules.getIfPresent(studentId);
+        if (schedule != null && !schedule.remove(course.getId(), course.getStartTime())) {
+            schedules.invalidate(studentId);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.RegistrationTicket;
+import com.example.coursesystem.service.AsyncRegistrationQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "registration.async.enabled", havingValue = "true")
+public class AsyncRegistrationController {
+
+    private final AsyncRegistrationQueue asyncRegistrationQueue;
+
+    @Autowired
+    public AsyncRegistrationController(AsyncRegistrationQueue asyncRegistrationQueue) {
+        this.asyncRegistrationQueue = asyncRegistrationQueue;
+    }
+
+    // 202 kèm ticket; kết quả xem ở /api/register/tickets/{ticketId}
+    @PostMapping("/register")
+    public ResponseEntity<?> registerCourse(@RequestBody BulkRegistrationRequest request) {
+        Optional<RegistrationTicket> ticket;
+        try {
+            ticket = asyncRegistrationQueue.submit(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (ticket.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Hệ thống đang quá tải, vui lòng thử lại sau");
+        }
+        return ResponseEntity.accepted().body(ticket.get());
+    }
+
+    @GetMapping("/register/tickets/{ticketId}")
+    public ResponseEntity<?> getTicket(@PathVariable String ticketId) {
+        return asyncRegistrationQueue.getTicket(ticketId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
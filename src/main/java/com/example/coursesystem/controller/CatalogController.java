@@ -0,0 +1,118 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.cache.CatalogPageCache;
+import com.example.coursesystem.service.CatalogService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api")
+public class CatalogController {
+
+    private final CatalogService catalogService;
+    private final CatalogPageCache catalogPageCache;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CatalogController(CatalogService catalogService, CatalogPageCache catalogPageCache, ObjectMapper objectMapper) {
+        this.catalogService = catalogService;
+        this.catalogPageCache = catalogPageCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/courses/upcoming")
+    public ResponseEntity<?> getUpcomingCourses(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            CatalogPageCache.Page page = catalogPageCache.get(cursor + "|" + size,
+                    () -> toJson(catalogService.getUpcomingCourses(cursor, size)));
+            // no-cache: client luôn hỏi lại bằng If-None-Match, danh mục không đổi thì chỉ nhận 304
+            if (matches(ifNoneMatch, page.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(page.etag())
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(page.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(page.body());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/courses/search")
+    public ResponseEntity<?> searchCourses(@RequestParam(required = false) String q,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @RequestParam(required = false) Long minPrice,
+                                           @RequestParam(required = false) Long maxPrice,
+                                           @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(catalogService.searchCourses(q, from, to, minPrice, maxPrice, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/students/{email}/registrations")
+    public ResponseEntity<?> getRegistrations(@PathVariable String email,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(catalogService.getRegistrations(email, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/students/{email}/registrations/archive")
+    public ResponseEntity<?> getArchivedRegistrations(@PathVariable String email,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(catalogService.getArchivedRegistrations(email, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // If-None-Match so sánh yếu: bỏ tiền tố W/ và chấp nhận danh sách hoặc *
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
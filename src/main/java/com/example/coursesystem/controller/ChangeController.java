@@ -0,0 +1,50 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.dto.ChangeBatch;
+import com.example.coursesystem.service.ChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class ChangeController {
+
+    private final ChangeFeed changeFeed;
+    private final long pollTimeoutMillis;
+
+    @Autowired
+    public ChangeController(ChangeFeed changeFeed, @Value("${changes.poll-timeout:30s}") Duration pollTimeout) {
+        this.changeFeed = changeFeed;
+        this.pollTimeoutMillis = pollTimeout.toMillis();
+    }
+
+    // Long-poll: trả ngay nếu đã có sự kiện sau since, nếu không thì giữ request (không giữ thread) tới khi có
+    // hoặc hết poll-timeout (danh sách rỗng). Lần gọi sau dùng since = next.
+    // 410 + resyncRequired: client tụt quá xa, cần tải lại dữ liệu rồi theo dõi tiếp từ next
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<?>> getChanges(@RequestParam long since) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(pollTimeoutMillis,
+                ResponseEntity.ok(ChangeBatch.of(List.of(), since)));
+        Runnable cancel = changeFeed.whenAvailable(since, batch -> result.setResult(response(batch)));
+        if (cancel == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Hệ thống đang quá tải, vui lòng thử lại sau"));
+        } else {
+            result.onCompletion(cancel);
+        }
+        return result;
+    }
+
+    private static ResponseEntity<?> response(ChangeBatch batch) {
+        return batch.isResyncRequired() ? ResponseEntity.status(HttpStatus.GONE).body(batch) : ResponseEntity.ok(batch);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.service.CourseStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/courses")
+public class CourseStatsController {
+
+    private final CourseStatsService courseStatsService;
+
+    @Autowired
+    public CourseStatsController(CourseStatsService courseStatsService) {
+        this.courseStatsService = courseStatsService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(courseStatsService.getStats());
+    }
+
+    @GetMapping("/{courseId}/stats")
+    public ResponseEntity<?> getStats(@PathVariable Long courseId) {
+        try {
+            return ResponseEntity.ok(courseStatsService.getStats(courseId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Tính lại toàn bộ từ bảng Registration
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuild() {
+        return ResponseEntity.ok(courseStatsService.rebuild());
+    }
+}
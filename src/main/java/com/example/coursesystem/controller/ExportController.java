@@ -0,0 +1,45 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.service.RegistrationExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api")
+public class ExportController {
+
+    private final RegistrationExportService registrationExportService;
+
+    @Autowired
+    public ExportController(RegistrationExportService registrationExportService) {
+        this.registrationExportService = registrationExportService;
+    }
+
+    // Body được ghi trên luồng async sau khi method trả về; transaction mở bên trong export
+    @GetMapping("/registrations/export")
+    public ResponseEntity<?> exportRegistrations(@RequestParam(defaultValue = "ndjson") String format,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                 @RequestParam(required = false) Long courseId) {
+        RegistrationExportService.Format exportFormat;
+        try {
+            exportFormat = RegistrationExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        StreamingResponseBody body = output -> registrationExportService.export(from, to, courseId, exportFormat, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"registrations." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+}
@@ -1,38 +1,72 @@
 package com.example.coursesystem.controller;
 
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.BulkRegistrationResult;
 import com.example.coursesystem.model.Course;
-import com.example.coursesystem.service.RegistrationService;
+import com.example.coursesystem.service.BulkRegistrationService;
+import com.example.coursesystem.service.RegistrationDeduplicator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 public class RegistrationController {
 
-    private final RegistrationService registrationService;
+    // Mỗi phần là một transaction; giữ số tham số IN dưới giới hạn 2100 của SQL Server
+    static final int BATCH_CHUNK_SIZE = 500;
+
+    private final RegistrationDeduplicator registrationDeduplicator;
+    private final BulkRegistrationService bulkRegistrationService;
 
     @Autowired
-    public RegistrationController(RegistrationService registrationService) {
-        this.registrationService = registrationService;
+    public RegistrationController(RegistrationDeduplicator registrationDeduplicator, BulkRegistrationService bulkRegistrationService) {
+        this.registrationDeduplicator = registrationDeduplicator;
+        this.bulkRegistrationService = bulkRegistrationService;
     }
 
     @PostMapping("/register/{courseId}/{email}")
-    public ResponseEntity<?> registerCourse(@PathVariable Long courseId, @PathVariable String email) {
+    public ResponseEntity<?> registerCourse(@PathVariable Long courseId, @PathVariable String email,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            List<Course> upcomingCourses = registrationService.registerCourse(email, courseId);
+            List<Course> upcomingCourses = registrationDeduplicator.registerCourse(email, courseId, idempotencyKey);
             return ResponseEntity.ok(upcomingCourses);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @PostMapping("/register/batch")
+    public ResponseEntity<List<BulkRegistrationResult>> registerCourses(@RequestBody List<BulkRegistrationRequest> requests) {
+        List<BulkRegistrationResult> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += BATCH_CHUNK_SIZE) {
+            List<BulkRegistrationRequest> chunk = requests.subList(from, Math.min(from + BATCH_CHUNK_SIZE, requests.size()));
+            try {
+                results.addAll(bulkRegistrationService.registerCourses(chunk));
+            } catch (IllegalArgumentException e) {
+                // Cả phần bị rollback (đăng ký trùng với một request khác chen vào): xử lý lại từng dòng
+                // để chỉ dòng thật sự trùng bị báo lỗi
+                chunk.forEach(request -> results.add(registerOne(request)));
+            }
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private BulkRegistrationResult registerOne(BulkRegistrationRequest request) {
+        try {
+            return bulkRegistrationService.registerCourses(List.of(request)).get(0);
+        } catch (IllegalArgumentException e) {
+            return BulkRegistrationResult.failure(request, e.getMessage());
+        }
+    }
+
     @DeleteMapping("/unregister/{courseId}/{email}")
     public ResponseEntity<?> unregisterCourse(@PathVariable Long courseId, @PathVariable String email) {
         try {
-            registrationService.unregisterCourse(courseId, email);
+            registrationDeduplicator.unregisterCourse(courseId, email);
             return ResponseEntity.ok("Hủy đăng ký thành công");
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -0,0 +1,41 @@
+package com.example.coursesystem.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Chỉ bật khi chạy virtual thread (spring.threads.virtual.enabled=true trên Java 21+):
+// với pool thread của Tomcat thì số thread đã tự giới hạn số request chờ connection.
+// Chỉ bọc pool Hikari là bean; pool primary/replica của ReadWriteRoutingConfig được bọc riêng ở đó.
+// PriorityOrdered để chạy trước QueryLoggingDataSourcePostProcessor: nếu proxy log bọc trước thì bean không còn là
+// HikariDataSource và giới hạn bị bỏ qua mà không báo gì
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConnectionLimitPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+    private final Duration acquireTimeout;
+
+    public ConnectionLimitPostProcessor(@Value("${datasource.connection-limit.acquire-timeout:30s}") Duration acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource pool) {
+            return ConnectionLimitingDataSource.forPool(pool, acquireTimeout);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.coursesystem.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bật khi có datasource.replica.url: primary cấu hình như cũ (spring.datasource.*),
+// replica qua datasource.replica.* (url, username, password, hikari.*)
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReadWriteRoutingConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        DataSourceProperties replicaProperties = binder.bind("datasource.replica", DataSourceProperties.class)
+                .orElseThrow(() -> new IllegalStateException("Thiếu cấu hình datasource.replica"));
+
+        DataSource primary = limited(pool(properties, binder, "spring.datasource.hikari", "primary"), binder, environment);
+        DataSource replica = limited(pool(replicaProperties, binder, "datasource.replica.hikari", "replica"), binder, environment);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, Binder binder, String hikariPrefix, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind(hikariPrefix, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pools.add(pool);
+        return pool;
+    }
+
+    // Với virtual thread mỗi pool có giới hạn riêng, nằm dưới LazyConnectionDataSourceProxy
+    // nên chỉ lấy permit khi thật sự mở connection
+    private DataSource limited(HikariDataSource pool, Binder binder, Environment environment) {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            return pool;
+        }
+        Duration acquireTimeout = binder.bind("datasource.connection-limit.acquire-timeout", Duration.class)
+                .orElse(Duration.ofSeconds(30));
+        return ConnectionLimitingDataSource.forPool(pool, acquireTimeout);
+    }
+
+    @PreDestroy
+    void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.coursesystem.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Transaction readOnly đi tới replica, còn lại (ghi, không có transaction) ở primary.
+// Phải được bọc trong LazyConnectionDataSourceProxy: cờ readOnly chỉ được đặt sau khi transaction đã lấy connection.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> pinnedToPrimary = ThreadLocal.withInitial(() -> false);
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    // Đọc ở primary kể cả trong transaction readOnly (read-your-writes). Connection được lấy ở câu lệnh đầu tiên
+    // nên phải gọi trước khi transaction hiện tại chạy câu lệnh nào.
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean previous = pinnedToPrimary.get();
+        pinnedToPrimary.set(true);
+        try {
+            return work.get();
+        } finally {
+            pinnedToPrimary.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (pinnedToPrimary.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+}
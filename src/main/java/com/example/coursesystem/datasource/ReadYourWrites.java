@@ -0,0 +1,43 @@
+package com.example.coursesystem.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Ghi nhớ học viên vừa ghi dữ liệu trong khoảng trễ tối đa của replica; các lần đọc của họ trong khoảng đó
+// đi tới primary để thấy ngay thay đổi của chính mình
+@Component
+public class ReadYourWrites {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    @Autowired
+    public ReadYourWrites(@Value("${datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    // Khoảng thời gian tính từ lúc commit
+    public void recordWrite(String email) {
+        recentWriters.put(email, true);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(email, true);
+                }
+            });
+        }
+    }
+
+    public boolean wroteRecently(String email) {
+        return recentWriters.getIfPresent(email) != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.coursesystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegistrationRequest {
+    private String email;
+    private Long courseId;
+}
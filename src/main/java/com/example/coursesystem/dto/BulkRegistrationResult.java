@@ -0,0 +1,24 @@
+package com.example.coursesystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegistrationResult {
+    private String email;
+    private Long courseId;
+    private boolean success;
+    private Long price;
+    private String message;
+
+    public static BulkRegistrationResult success(BulkRegistrationRequest request, Long price) {
+        return new BulkRegistrationResult(request.getEmail(), request.getCourseId(), true, price, null);
+    }
+
+    public static BulkRegistrationResult failure(BulkRegistrationRequest request, String message) {
+        return new BulkRegistrationResult(request.getEmail(), request.getCourseId(), false, null, message);
+    }
+}
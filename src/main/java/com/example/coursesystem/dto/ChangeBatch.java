@@ -0,0 +1,26 @@
+package com.example.coursesystem.dto;
+
+import com.example.coursesystem.model.ChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeBatch {
+    private List<ChangeEvent> events;
+    private long next; // truyền lại làm since ở lần gọi sau
+    private boolean resyncRequired;
+
+    public static ChangeBatch of(List<ChangeEvent> events, long next) {
+        return new ChangeBatch(events, next, false);
+    }
+
+    // Các sự kiện sau since không còn trong bộ nhớ: client tải lại toàn bộ rồi theo dõi tiếp từ next
+    public static ChangeBatch resync(long next) {
+        return new ChangeBatch(List.of(), next, true);
+    }
+}
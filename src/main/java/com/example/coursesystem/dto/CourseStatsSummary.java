@@ -0,0 +1,15 @@
+package com.example.coursesystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseStatsSummary {
+    private Long courseId;
+    private String courseName;
+    private Long registrations;
+    private Long revenue;
+}
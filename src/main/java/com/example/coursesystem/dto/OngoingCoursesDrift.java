@@ -0,0 +1,9 @@
+package com.example.coursesystem.dto;
+
+public interface OngoingCoursesDrift {
+    Long getStudentId();
+
+    Integer getStored();
+
+    Long getExpected();
+}
@@ -0,0 +1,16 @@
+package com.example.coursesystem.dto;
+
+import com.example.coursesystem.model.Course;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationContext {
+    private Long studentId;
+    private Course course; // null khi không tìm thấy khóa học
+    private Integer ongoingCoursesCount;
+    private Long scheduleVersion;
+}
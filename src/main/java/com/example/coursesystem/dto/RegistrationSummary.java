@@ -0,0 +1,19 @@
+package com.example.coursesystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationSummary {
+    private Long courseId;
+    private String courseName;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long price; // giá đã trả
+    private LocalDateTime registeredDate;
+}
@@ -0,0 +1,33 @@
+package com.example.coursesystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationTicket {
+
+    public enum Status {
+        PENDING,
+        SUCCESS,
+        FAILED
+    }
+
+    private String id;
+    private String email;
+    private Long courseId;
+    private Status status;
+    private Long price;
+    private String message;
+
+    public static RegistrationTicket pending(String id, BulkRegistrationRequest request) {
+        return new RegistrationTicket(id, request.getEmail(), request.getCourseId(), Status.PENDING, null, null);
+    }
+
+    public static RegistrationTicket completed(String id, BulkRegistrationResult result) {
+        return new RegistrationTicket(id, result.getEmail(), result.getCourseId(),
+                result.isSuccess() ? Status.SUCCESS : Status.FAILED, result.getPrice(), result.getMessage());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.coursesystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleSlot {
+    private Long studentId;
+    private Long courseId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,15 @@
+package com.example.coursesystem.dto;
+
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnregistrationContext {
+    private Registration registration;
+    private Course course; // đọc từ database cùng đăng ký, không qua CourseCache
+}
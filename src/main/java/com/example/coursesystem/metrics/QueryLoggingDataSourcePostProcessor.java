@@ -0,0 +1,50 @@
+package com.example.coursesystem.metrics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Bọc DataSource bằng datasource-proxy: StatementCounter luôn đếm câu lệnh cho registration.statements,
+// SlowQueryLogger đo thời gian và tham số của từng câu lệnh khi datasource.query-log.enabled.
+// Chạy sau cùng để bọc ngoài các wrapper khác (ConnectionLimitPostProcessor cần thấy HikariDataSource gốc)
+@Component
+public class QueryLoggingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+    private final ObjectProvider<StatementCounter> statementCounter;
+    private final ObjectProvider<SlowQueryLogger> slowQueryLogger;
+    private final boolean queryLogEnabled;
+
+    public QueryLoggingDataSourcePostProcessor(ObjectProvider<StatementCounter> statementCounter,
+                                               ObjectProvider<SlowQueryLogger> slowQueryLogger,
+                                               Environment environment) {
+        this.statementCounter = statementCounter;
+        this.slowQueryLogger = slowQueryLogger;
+        // BeanPostProcessor được tạo sớm, trước khi @Value được resolve
+        this.queryLogEnabled = environment.getProperty("datasource.query-log.enabled", Boolean.class, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(statementCounter.getIfAvailable(StatementCounter::new));
+            if (queryLogEnabled) {
+                builder.listener(slowQueryLogger.getObject());
+            }
+            return builder.build();
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.coursesystem.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Timer cho từng bước của đăng ký/hủy đăng ký và số câu lệnh SQL mỗi request, gắn tag outcome.
+// Các bước được ghi lại khi request kết thúc vì outcome chỉ biết lúc đó: trong transaction thì là sau commit/rollback,
+// commit lỗi tính là error và thời gian commit (gồm flush) là bước "commit".
+@Component
+public class RegistrationMetrics {
+
+    private static final Map<String, String> OUTCOMES = Map.of(
+            "Không tìm thấy học viên", "student_not_found",
+            "Không tìm thấy khóa học", "course_not_found",
+            "Không thể đăng ký khóa học đã bắt đầu", "course_started",
+            "Không thể hủy đăng ký khóa học đã bắt đầu", "course_started",
+            "Đã đăng ký khóa học này rồi", "already_registered",
+            "Khóa học đã hết chỗ", "course_full",
+            "Trùng lịch với khóa học đã đăng ký", "schedule_conflict",
+            "Không tìm thấy đăng ký khóa học", "registration_not_found");
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public RegistrationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Recording start(String operation) {
+        return new Recording(operation);
+    }
+
+    static String outcome(IllegalArgumentException e) {
+        return OUTCOMES.getOrDefault(e.getMessage(), "invalid");
+    }
+
+    public class Recording {
+        private final String operation;
+        private final long startNanos = System.nanoTime();
+        private final long startStatements = StatementCounter.current();
+        private final List<String> stages = new ArrayList<>();
+        private final List<Long> durations = new ArrayList<>();
+
+        private Recording(String operation) {
+            this.operation = operation;
+        }
+
+        public <T> T stage(String stage, Supplier<T> step) {
+            long start = System.nanoTime();
+            try {
+                return step.get();
+            } finally {
+                stages.add(stage);
+                durations.add(System.nanoTime() - start);
+            }
+        }
+
+        public void success() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                finish("success");
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private long commitStart;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitStart = System.nanoTime();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (commitStart != 0) {
+                        stages.add("commit");
+                        durations.add(System.nanoTime() - commitStart);
+                    }
+                    finish(status == STATUS_COMMITTED ? "success" : "error");
+                }
+            });
+        }
+
+        public void failure(IllegalArgumentException e) {
+            finish(outcome(e));
+        }
+
+        public void error() {
+            finish("error");
+        }
+
+        private void finish(String outcome) {
+            for (int i = 0; i < stages.size(); i++) {
+                Timer.builder("registration.stage")
+                        .tag("operation", operation)
+                        .tag("stage", stages.get(i))
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(durations.get(i), TimeUnit.NANOSECONDS);
+            }
+            Timer.builder("registration.request")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("registration.statements")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(StatementCounter.current() - startStatements);
+        }
+    }
+}
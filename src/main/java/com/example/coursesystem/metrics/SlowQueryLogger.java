@@ -0,0 +1,91 @@
+package com.example.coursesystem.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+// Thay cho spring.jpa.show-sql: luôn log câu lệnh chậm hơn ngưỡng, lấy mẫu một phần nhỏ các câu lệnh còn lại,
+// ngoài ra không log gì. Chuỗi log chỉ được dựng khi thực sự ghi; batch lớn chỉ ghi vài bộ tham số đầu.
+@Component
+public class SlowQueryLogger implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLogger.class);
+    private static final int MAX_BATCH_ENTRIES = 5;
+    private static final int MAX_PARAMETERS = 20;
+
+    private final long slowThresholdMillis;
+    private final double sampleRate;
+
+    @Autowired
+    public SlowQueryLogger(@Value("${datasource.query-log.slow-threshold:200ms}") Duration slowThreshold,
+                           @Value("${datasource.query-log.sample-rate:0.001}") double sampleRate) {
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        if (elapsed >= slowThresholdMillis) {
+            log.warn("Slow query {} ms [{}] {}", elapsed, endpoint(), format(queryInfoList));
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled query {} ms [{}] {}", elapsed, endpoint(), format(queryInfoList));
+        }
+    }
+
+    private static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return "-";
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    static String format(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream()
+                .limit(MAX_BATCH_ENTRIES)
+                .map(query -> query.getQuery() + " " + query.getParametersList().stream()
+                        .limit(MAX_BATCH_ENTRIES)
+                        .map(parameters -> parameters.stream()
+                                .limit(MAX_PARAMETERS)
+                                .map(SlowQueryLogger::value)
+                                .collect(Collectors.joining(", ", "(", more(parameters.size(), MAX_PARAMETERS) + ")")))
+                        .collect(Collectors.joining(", ")) + more(query.getParametersList().size(), MAX_BATCH_ENTRIES))
+                .collect(Collectors.joining("; ")) + more(queryInfoList.size(), MAX_BATCH_ENTRIES);
+    }
+
+    // setNull(index, sqlType): tham số cuối là mã kiểu SQL, không phải giá trị
+    private static String value(ParameterSetOperation operation) {
+        if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+            return "null";
+        }
+        Object[] args = operation.getArgs();
+        return String.valueOf(args[args.length - 1]);
+    }
+
+    private static String more(int size, int limit) {
+        return size > limit ? ", ... +" + (size - limit) : "";
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.coursesystem.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Đếm số câu lệnh JDBC thực thi trên mỗi thread ở tầng DataSource (Hibernate lẫn JdbcTemplate);
+// RegistrationMetrics lấy hiệu số trước/sau một request. Một batch tính là một câu lệnh.
+@Component
+public class StatementCounter implements QueryExecutionListener {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        COUNT.get()[0]++;
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
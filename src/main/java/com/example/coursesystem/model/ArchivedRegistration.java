@@ -0,0 +1,35 @@
+package com.example.coursesystem.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Đăng ký của các khóa đã kết thúc quá thời gian lưu, được RegistrationArchiver chuyển khỏi bảng registration.
+// Chỉ đọc qua ArchivedRegistrationRepository (lịch sử học, xuất báo cáo)
+@Entity
+@Table(name = "registration_archive",
+        indexes = @Index(name = "ix_registration_archive_student_id", columnList = "studentId"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(RegistrationId.class)
+public class ArchivedRegistration implements RegistrationRecord {
+    @Id
+    private Long studentId;
+
+    @Id
+    private Long courseId;
+
+    private Long price;
+    private LocalDateTime registeredDate;
+    private LocalDateTime archivedDate;
+}
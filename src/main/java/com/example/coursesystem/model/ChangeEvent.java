@@ -0,0 +1,41 @@
+package com.example.coursesystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outbox của change feed: ghi cùng transaction với thay đổi (ChangeFeed), id là số thứ tự sự kiện.
+// Chỉ giữ khoảng bằng dung lượng ring buffer, dòng cũ hơn bị xóa định kỳ
+@Entity
+@Table(name = "change_event")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ChangeType type;
+
+    @Column(nullable = false)
+    private Long courseId;
+
+    private Long studentId; // null với thay đổi khóa học
+
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,9 @@
+package com.example.coursesystem.model;
+
+public enum ChangeType {
+    REGISTERED,
+    UNREGISTERED,
+    COURSE_CREATED,
+    COURSE_UPDATED,
+    COURSE_DELETED
+}
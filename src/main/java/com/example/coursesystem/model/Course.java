@@ -1,17 +1,31 @@
 package com.example.coursesystem.model;
 
+import com.example.coursesystem.cache.CourseCacheInvalidator;
+import com.example.coursesystem.cache.CourseSearchIndexListener;
+import com.example.coursesystem.service.ChangeFeedListener;
+import com.example.coursesystem.service.CourseStatsListener;
+import com.example.coursesystem.service.OngoingCourseScheduleListener;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "ix_course_start_time_id", columnList = "startTime, id"))
+@EntityListeners({CourseCacheInvalidator.class, CourseSearchIndexListener.class, OngoingCourseScheduleListener.class, CourseStatsListener.class, ChangeFeedListener.class})
 @Data
 @Builder
 @NoArgsConstructor
@@ -26,7 +40,25 @@ public class Course {
     private LocalDateTime endTime;
     private Long price;
 
+    private Integer capacity; // null = không giới hạn số chỗ
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer seatsTaken = 0;
+
+    // Chỉ OngoingCourseCounter chuyển giai đoạn, cùng lúc với việc cập nhật bộ đếm của học viên
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'UPCOMING'")
+    @Column(nullable = false, length = 16)
+    private CoursePhase phase = CoursePhase.UPCOMING;
+
     public boolean hasStarted() {
         return LocalDateTime.now().isAfter(startTime);
     }
+
+    public boolean isFull() {
+        return capacity != null && seatsTaken >= capacity;
+    }
 }
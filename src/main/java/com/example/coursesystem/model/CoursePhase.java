@@ -0,0 +1,8 @@
+package com.example.coursesystem.model;
+
+// Giai đoạn của khóa học mà bộ đếm Student.ongoingCourses đang phản ánh
+public enum CoursePhase {
+    UPCOMING,
+    ONGOING,
+    FINISHED
+}
@@ -0,0 +1,32 @@
+package com.example.coursesystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Số đăng ký và doanh thu của khóa học, chia thành nhiều dòng (stripe) theo học viên
+// để các đăng ký đồng thời vào cùng khóa không tranh nhau một dòng; cộng dồn khi đọc.
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(CourseStatsId.class)
+public class CourseStats {
+    @Id
+    private Long courseId;
+
+    @Id
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Long registrations;
+
+    @Column(nullable = false)
+    private Long revenue;
+}
@@ -0,0 +1,15 @@
+package com.example.coursesystem.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseStatsId implements Serializable {
+    private Long courseId;
+    private Integer stripe;
+}
@@ -3,20 +3,29 @@ package com.example.coursesystem.model;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 @Entity
+// Khóa chính được tạo theo thứ tự (course_id, student_id) nên các truy vấn theo học viên cần index riêng
+@Table(indexes = @Index(name = "ix_registration_student_id", columnList = "studentId"))
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @IdClass(RegistrationId.class)
-public class Registration {
+public class Registration implements Persistable<RegistrationId>, RegistrationRecord {
     @Id
     private Long studentId;
 
@@ -25,4 +34,26 @@ public class Registration {
 
     private Long price;
     private LocalDateTime registeredDate;
+
+    // Khóa do ứng dụng gán: save() dùng persist thay vì merge (không SELECT trước khi INSERT)
+    @Transient
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public RegistrationId getId() {
+        return new RegistrationId(studentId, courseId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
 }
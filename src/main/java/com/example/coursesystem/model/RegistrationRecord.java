@@ -0,0 +1,14 @@
+package com.example.coursesystem.model;
+
+import java.time.LocalDateTime;
+
+// Phần chung của đăng ký ở bảng chính và bảng lưu trữ, dùng khi xuất báo cáo
+public interface RegistrationRecord {
+    Long getStudentId();
+
+    Long getCourseId();
+
+    Long getPrice();
+
+    LocalDateTime getRegisteredDate();
+}
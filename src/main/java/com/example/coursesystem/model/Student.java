@@ -1,15 +1,23 @@
 package com.example.coursesystem.model;
 
+import com.example.coursesystem.cache.StudentIdCacheInvalidator;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_student_email", columnNames = "email"))
+@EntityListeners(StudentIdCacheInvalidator.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -22,4 +30,16 @@ public class Student {
     private String email;
     private String firstName;
     private String lastName;
+
+    // Số khóa đang học, do OngoingCourseCounter duy trì
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer ongoingCourses = 0;
+
+    // Tăng mỗi khi lịch học của học viên đổi (đăng ký, hủy đăng ký), do StudentScheduleCache duy trì
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long scheduleVersion = 0L;
 }
@@ -0,0 +1,27 @@
+package com.example.coursesystem.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "registration.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final RegistrationAdmissionInterceptor admissionInterceptor;
+
+    @Autowired
+    public AdmissionControlConfig(RegistrationAdmissionInterceptor admissionInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+    }
+
+    // Trang xem ticket chỉ đọc cache nên không bị giới hạn
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor)
+                .addPathPatterns("/api/register", "/api/register/*/*", "/api/register/batch", "/api/unregister/*/*")
+                .excludePathPatterns("/api/register/tickets/*");
+    }
+}
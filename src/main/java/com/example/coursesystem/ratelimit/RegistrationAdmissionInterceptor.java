@@ -0,0 +1,128 @@
+package com.example.coursesystem.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Chặn trước RegistrationController:
+// - token bucket theo email và theo IP (429); bucket không dùng tới sẽ bị xóa sau idle-timeout, tối đa max-buckets mỗi loại
+// - giới hạn số request đang xử lý (503) để từ chối ngay thay vì xếp hàng chờ connection pool
+// Cả hai trả Retry-After và được đếm ở registration.rejected theo reason.
+// Bucket IP dùng getRemoteAddr(): sau load balancer phải bật server.forward-headers-strategy=native để đó là IP
+// thật của client (lấy từ X-Forwarded-For của proxy tin cậy), nếu không mọi client dùng chung bucket của proxy.
+@Component
+@ConditionalOnProperty(name = "registration.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class RegistrationAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = RegistrationAdmissionInterceptor.class.getName() + ".permit";
+    private static final Duration OVERLOAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final Cache<String, TokenBucket> emailBuckets;
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final int emailBurst;
+    private final Duration emailRefill;
+    private final int ipBurst;
+    private final Duration ipRefill;
+    private final Semaphore inFlight;
+    private final Counter emailRejected;
+    private final Counter ipRejected;
+    private final Counter overloaded;
+
+    @Autowired
+    public RegistrationAdmissionInterceptor(MeterRegistry meterRegistry,
+                                            @Value("${registration.admission.email-burst:5}") int emailBurst,
+                                            @Value("${registration.admission.email-refill:1s}") Duration emailRefill,
+                                            @Value("${registration.admission.ip-burst:50}") int ipBurst,
+                                            @Value("${registration.admission.ip-refill:50ms}") Duration ipRefill,
+                                            @Value("${registration.admission.max-buckets:100000}") long maxBuckets,
+                                            @Value("${registration.admission.idle-timeout:10m}") Duration idleTimeout,
+                                            @Value("${registration.admission.max-concurrent:10}") int maxConcurrent) {
+        this.emailBuckets = Caffeine.newBuilder().maximumSize(maxBuckets).expireAfterAccess(idleTimeout).build();
+        this.ipBuckets = Caffeine.newBuilder().maximumSize(maxBuckets).expireAfterAccess(idleTimeout).build();
+        this.emailBurst = emailBurst;
+        this.emailRefill = emailRefill;
+        this.ipBurst = ipBurst;
+        this.ipRefill = ipRefill;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.emailRejected = rejectedCounter(meterRegistry, "email_rate");
+        this.ipRejected = rejectedCounter(meterRegistry, "ip_rate");
+        this.overloaded = rejectedCounter(meterRegistry, "overloaded");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        long now = System.nanoTime();
+        long wait = ipBuckets.get(request.getRemoteAddr(), ip -> new TokenBucket(ipBurst, ipRefill, now)).tryAcquire(now);
+        if (wait > 0) {
+            ipRejected.increment();
+            return reject(response, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(wait), "Bạn thao tác quá nhanh, vui lòng thử lại sau");
+        }
+
+        String email = email(request);
+        if (email != null) {
+            wait = emailBuckets.get(email, key -> new TokenBucket(emailBurst, emailRefill, now)).tryAcquire(now);
+            if (wait > 0) {
+                emailRejected.increment();
+                return reject(response, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(wait), "Bạn thao tác quá nhanh, vui lòng thử lại sau");
+            }
+        }
+
+        if (!inFlight.tryAcquire()) {
+            overloaded.increment();
+            return reject(response, HttpStatus.SERVICE_UNAVAILABLE, OVERLOAD_RETRY_AFTER, "Hệ thống đang quá tải, vui lòng thử lại sau");
+        }
+        request.setAttribute(PERMIT, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) != null) {
+            request.removeAttribute(PERMIT);
+            inFlight.release();
+        }
+    }
+
+    // Email nằm trong path (/register/{courseId}/{email}); /register và /register/batch chỉ bị giới hạn theo IP
+    @SuppressWarnings("unchecked")
+    private static String email(HttpServletRequest request) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String email = variables != null ? variables.get("email") : null;
+        return email != null ? email.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static boolean reject(HttpServletResponse response, HttpStatus status, Duration retryAfter, String message) throws IOException {
+        // Retry-After tính bằng giây, làm tròn lên
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfter.toNanos() + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+        return false;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("registration.rejected").tag("reason", reason).register(meterRegistry);
+    }
+}
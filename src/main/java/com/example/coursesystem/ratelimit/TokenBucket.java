@@ -0,0 +1,34 @@
+package com.example.coursesystem.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket dạng GCRA: chỉ lưu thời điểm bucket sẽ đầy lại trong một AtomicLong và cập nhật bằng CAS,
+// không cần khóa. Mỗi token lấy ra đẩy mốc đó thêm một refill; từ chối khi mốc vượt quá burst refill so với hiện tại.
+public class TokenBucket {
+
+    private final long refillNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int burst, Duration refill, long nowNanos) {
+        this.refillNanos = refill.toNanos();
+        this.toleranceNanos = burst * refillNanos;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    // 0 nếu lấy được token, ngược lại là số nano giây phải chờ tới khi có token
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + refillNanos;
+            long wait = next - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.coursesystem.repository;
+
+import com.example.coursesystem.dto.RegistrationSummary;
+import com.example.coursesystem.model.ArchivedRegistration;
+import com.example.coursesystem.model.RegistrationId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedRegistrationRepository extends JpaRepository<ArchivedRegistration, RegistrationId> {
+
+    @Query("SELECT new com.example.coursesystem.dto.RegistrationSummary(c.id, c.name, c.startTime, c.endTime, a.price, a.registeredDate) " +
+            "FROM ArchivedRegistration a JOIN Course c ON a.courseId = c.id " +
+            "WHERE a.studentId = :studentId " +
+            "ORDER BY c.startTime, c.id")
+    List<RegistrationSummary> findSummariesByStudentId(Long studentId, Pageable limit);
+
+    @Query("SELECT new com.example.coursesystem.dto.RegistrationSummary(c.id, c.name, c.startTime, c.endTime, a.price, a.registeredDate) " +
+            "FROM ArchivedRegistration a JOIN Course c ON a.courseId = c.id " +
+            "WHERE a.studentId = :studentId " +
+            "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId)) " +
+            "ORDER BY c.startTime, c.id")
+    List<RegistrationSummary> findSummariesByStudentIdAfter(Long studentId, LocalDateTime afterStartTime, Long afterId, Pageable limit);
+
+    // Giống RegistrationRepository.streamForExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM ArchivedRegistration a " +
+            "WHERE (:from IS NULL OR a.registeredDate >= :from) " +
+            "AND (:to IS NULL OR a.registeredDate < :to) " +
+            "AND (:courseId IS NULL OR a.courseId = :courseId)")
+    Stream<ArchivedRegistration> streamForExport(LocalDateTime from, LocalDateTime to, Long courseId);
+
+    // Chép các đăng ký trong khoảng khóa chính [from, to] của khóa học kết thúc trước endedBefore.
+    // Chạy trong transaction của RegistrationArchiver, cùng với RegistrationRepository.deleteArchived
+    @Modifying
+    @Query("INSERT INTO ArchivedRegistration (studentId, courseId, price, registeredDate, archivedDate) " +
+            "SELECT r.studentId, r.courseId, r.price, r.registeredDate, :archivedDate FROM Registration r " +
+            "WHERE (r.courseId > :fromCourseId OR (r.courseId = :fromCourseId AND r.studentId >= :fromStudentId)) " +
+            "AND (r.courseId < :toCourseId OR (r.courseId = :toCourseId AND r.studentId <= :toStudentId)) " +
+            "AND r.courseId IN (SELECT c.id FROM Course c WHERE c.endTime < :endedBefore)")
+    int copyFromRegistrations(Long fromCourseId, Long fromStudentId, Long toCourseId, Long toStudentId,
+                              LocalDateTime endedBefore, LocalDateTime archivedDate);
+}
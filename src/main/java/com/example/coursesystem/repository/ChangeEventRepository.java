@@ -0,0 +1,25 @@
+package com.example.coursesystem.repository;
+
+import com.example.coursesystem.model.ChangeEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    List<ChangeEvent> findByIdGreaterThanOrderById(Long id, Pageable limit);
+
+    Optional<ChangeEvent> findTopByOrderByIdDesc();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChangeEvent e WHERE e.id <= :id")
+    int deleteUpTo(Long id);
+}
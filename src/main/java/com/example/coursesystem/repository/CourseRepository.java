@@ -1,13 +1,90 @@
 package com.example.coursesystem.repository;
 
+import com.example.coursesystem.dto.CourseSummary;
 import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.CoursePhase;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
     List<Course> findByStartTimeAfter(LocalDateTime dateTime);
-}
\ No newline at end of file
+
+    @Query("SELECT c FROM Course c JOIN Registration r ON r.courseId = c.id " +
+            "WHERE r.studentId = :studentId AND c.startTime > :now")
+    List<Course> findUpcomingCoursesByStudentId(Long studentId, LocalDateTime now);
+
+    // Phân trang keyset trên (startTime, id): trang sau tìm tiếp từ vị trí cuối thay vì OFFSET
+    @Query("SELECT new com.example.coursesystem.dto.CourseSummary(c.id, c.name, c.startTime, c.endTime, c.price) " +
+            "FROM Course c WHERE c.startTime > :now " +
+            "ORDER BY c.startTime, c.id")
+    List<CourseSummary> findUpcomingSummaries(LocalDateTime now, Pageable limit);
+
+    @Query("SELECT new com.example.coursesystem.dto.CourseSummary(c.id, c.name, c.startTime, c.endTime, c.price) " +
+            "FROM Course c WHERE c.startTime > :now " +
+            "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId)) " +
+            "ORDER BY c.startTime, c.id")
+    List<CourseSummary> findUpcomingSummariesAfter(LocalDateTime now, LocalDateTime afterStartTime, Long afterId, Pageable limit);
+
+    // Nạp chỉ mục tìm kiếm (CourseSearchIndex)
+    @Query("SELECT new com.example.coursesystem.dto.CourseSummary(c.id, c.name, c.startTime, c.endTime, c.price) FROM Course c")
+    List<CourseSummary> findAllSummaries();
+
+    // Giữ chỗ bằng một UPDATE có điều kiện, không khóa bi quan
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.seatsTaken = c.seatsTaken + 1 " +
+            "WHERE c.id = :courseId AND c.seatsTaken < c.capacity")
+    int claimSeat(Long courseId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.seatsTaken = c.seatsTaken - 1 " +
+            "WHERE c.id = :courseId AND c.seatsTaken > 0")
+    int releaseSeat(Long courseId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.seatsTaken = c.seatsTaken + :seats " +
+            "WHERE c.id = :courseId AND c.seatsTaken + :seats <= c.capacity")
+    int claimSeats(Long courseId, int seats);
+
+    // Khóa dòng khóa học tới khi commit rồi đọc số chỗ còn trống
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.capacity - c.seatsTaken FROM Course c WHERE c.id = :courseId AND c.capacity IS NOT NULL")
+    Optional<Integer> lockFreeSeats(Long courseId);
+
+    // Giữ chỗ theo lô: cấp min(seats, số chỗ còn trống) thay vì tất cả hoặc không, trả về số chỗ đã cấp
+    default int claimAvailableSeats(Long courseId, int seats) {
+        int granted = Math.max(0, Math.min(seats, lockFreeSeats(courseId).orElse(0)));
+        if (granted > 0) {
+            claimSeats(courseId, granted);
+        }
+        return granted;
+    }
+
+    @Query("SELECT c FROM Course c " +
+            "WHERE (c.phase = :upcoming AND c.startTime <= :now) OR (c.phase = :ongoing AND c.endTime <= :now)")
+    List<Course> findPhaseChangesDue(LocalDateTime now, CoursePhase upcoming, CoursePhase ongoing);
+
+    // Mốc thời gian gần nhất mà một khóa học bắt đầu hoặc kết thúc
+    @Query("SELECT MIN(CASE WHEN c.phase = :upcoming THEN c.startTime ELSE c.endTime END) FROM Course c " +
+            "WHERE c.phase = :upcoming OR c.phase = :ongoing")
+    Optional<LocalDateTime> findNextPhaseBoundary(CoursePhase upcoming, CoursePhase ongoing);
+
+    // Có điều kiện theo giai đoạn cũ để mỗi lần chuyển chỉ được áp dụng một lần
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.phase = :to WHERE c.id = :courseId AND c.phase = :from")
+    int changePhase(Long courseId, CoursePhase from, CoursePhase to);
+}
@@ -0,0 +1,60 @@
+package com.example.coursesystem.repository;
+
+import com.example.coursesystem.dto.CourseStatsSummary;
+import com.example.coursesystem.model.CourseStats;
+import com.example.coursesystem.model.CourseStatsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CourseStatsRepository extends JpaRepository<CourseStats, CourseStatsId> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CourseStats s SET s.registrations = s.registrations + :registrations, s.revenue = s.revenue + :revenue " +
+            "WHERE s.courseId = :courseId AND s.stripe = :stripe")
+    int add(Long courseId, int stripe, long registrations, long revenue);
+
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO CourseStats (courseId, stripe, registrations, revenue) VALUES (:courseId, :stripe, 0, 0) " +
+            "ON CONFLICT DO NOTHING")
+    int createStripe(Long courseId, int stripe);
+
+    @Query("SELECT new com.example.coursesystem.dto.CourseStatsSummary(c.id, c.name, SUM(s.registrations), SUM(s.revenue)) " +
+            "FROM CourseStats s JOIN Course c ON c.id = s.courseId " +
+            "GROUP BY c.id, c.name ORDER BY c.id")
+    List<CourseStatsSummary> findSummaries();
+
+    @Query("SELECT new com.example.coursesystem.dto.CourseStatsSummary(c.id, c.name, SUM(s.registrations), SUM(s.revenue)) " +
+            "FROM CourseStats s JOIN Course c ON c.id = s.courseId " +
+            "WHERE c.id = :courseId GROUP BY c.id, c.name")
+    Optional<CourseStatsSummary> findSummary(Long courseId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CourseStats")
+    int deleteAllStats();
+
+    // Tính cả đăng ký đã chuyển sang bảng lưu trữ
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO CourseStats (courseId, stripe, registrations, revenue) " +
+            "SELECT t.courseId, 0, COUNT(*), SUM(t.price) FROM (" +
+            "SELECT r.courseId AS courseId, r.price AS price FROM Registration r " +
+            "UNION ALL SELECT a.courseId, a.price FROM ArchivedRegistration a) t " +
+            "GROUP BY t.courseId")
+    int insertFromRegistrations();
+
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO CourseStats (courseId, stripe, registrations, revenue) SELECT c.id, :stripe, 0, 0 FROM Course c " +
+            "WHERE NOT EXISTS (SELECT 1 FROM CourseStats s WHERE s.courseId = c.id AND s.stripe = :stripe)")
+    int createMissingStripes(int stripe);
+}
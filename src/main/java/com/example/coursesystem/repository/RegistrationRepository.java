@@ -1,14 +1,26 @@
 package com.example.coursesystem.repository;
 
+import com.example.coursesystem.dto.RegistrationContext;
+import com.example.coursesystem.dto.RegistrationSummary;
+import com.example.coursesystem.dto.ScheduleSlot;
+import com.example.coursesystem.dto.UnregistrationContext;
 import com.example.coursesystem.model.Registration;
 import com.example.coursesystem.model.RegistrationId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RegistrationRepository extends JpaRepository<Registration, RegistrationId> {
@@ -23,5 +35,74 @@ public interface RegistrationRepository extends JpaRepository<Registration, Regi
             "WHERE r.studentId = :studentId AND c.startTime <= :now AND c.endTime > :now")
     int countOngoingCoursesByStudentId(Long studentId, LocalDateTime now);
 
+    // Lịch các khóa chưa kết thúc của học viên, dùng cho kiểm tra trùng lịch
+    @Query("SELECT new com.example.coursesystem.dto.ScheduleSlot(r.studentId, c.id, c.startTime, c.endTime) " +
+            "FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE r.studentId IN :studentIds AND c.endTime > :now")
+    List<ScheduleSlot> findScheduleSlots(Collection<Long> studentIds, LocalDateTime now);
+
+    @Query("SELECT new com.example.coursesystem.dto.RegistrationSummary(c.id, c.name, c.startTime, c.endTime, r.price, r.registeredDate) " +
+            "FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE r.studentId = :studentId " +
+            "ORDER BY c.startTime, c.id")
+    List<RegistrationSummary> findSummariesByStudentId(Long studentId, Pageable limit);
+
+    @Query("SELECT new com.example.coursesystem.dto.RegistrationSummary(c.id, c.name, c.startTime, c.endTime, r.price, r.registeredDate) " +
+            "FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE r.studentId = :studentId " +
+            "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId)) " +
+            "ORDER BY c.startTime, c.id")
+    List<RegistrationSummary> findSummariesByStudentIdAfter(Long studentId, LocalDateTime afterStartTime, Long afterId, Pageable limit);
+
+    // Đọc dần theo fetch size thay vì nạp hết; không ORDER BY để DB không phải sắp xếp cả bảng.
+    // Phải dùng trong transaction và detach từng entity sau khi xử lý
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Registration r " +
+            "WHERE (:from IS NULL OR r.registeredDate >= :from) " +
+            "AND (:to IS NULL OR r.registeredDate < :to) " +
+            "AND (:courseId IS NULL OR r.courseId = :courseId)")
+    Stream<Registration> streamForExport(LocalDateTime from, LocalDateTime to, Long courseId);
+
     Optional<Registration> findByStudentIdAndCourseId(Long studentId, Long courseId);
-}
\ No newline at end of file
+
+    // Đăng ký cùng khóa học trong một câu lệnh: startTime/endTime lấy thẳng từ database vì CourseCache
+    // của instance này có thể chưa biết thay đổi lịch được commit ở instance khác
+    @Query("SELECT new com.example.coursesystem.dto.UnregistrationContext(r, c) " +
+            "FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE r.studentId = :studentId AND r.courseId = :courseId")
+    Optional<UnregistrationContext> findUnregistrationContext(Long studentId, Long courseId);
+
+    List<Registration> findByStudentIdInAndCourseIdIn(Collection<Long> studentIds, Collection<Long> courseIds);
+
+    // Học viên, khóa học, bộ đếm số khóa đang học và version lịch trong một câu lệnh; course = null nếu không có khóa học
+    @Query("SELECT new com.example.coursesystem.dto.RegistrationContext(s.id, c, s.ongoingCourses, s.scheduleVersion) " +
+            "FROM Student s LEFT JOIN Course c ON c.id = :courseId " +
+            "WHERE s.email = :email")
+    Optional<RegistrationContext> findRegistrationContext(String email, Long courseId);
+
+    // Khóa chính của lô đăng ký tiếp theo cần lưu trữ, theo thứ tự khóa chính (course_id, student_id)
+    @Query("SELECT new com.example.coursesystem.model.RegistrationId(r.studentId, r.courseId) " +
+            "FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE c.endTime < :endedBefore " +
+            "AND (r.courseId > :afterCourseId OR (r.courseId = :afterCourseId AND r.studentId > :afterStudentId)) " +
+            "ORDER BY r.courseId, r.studentId")
+    List<RegistrationId> findArchivableIds(LocalDateTime endedBefore, Long afterCourseId, Long afterStudentId, Pageable limit);
+
+    // Chỉ xóa dòng đã có trong bảng lưu trữ (xem ArchivedRegistrationRepository.copyFromRegistrations)
+    @Modifying
+    @Query("DELETE FROM Registration r " +
+            "WHERE (r.courseId > :fromCourseId OR (r.courseId = :fromCourseId AND r.studentId >= :fromStudentId)) " +
+            "AND (r.courseId < :toCourseId OR (r.courseId = :toCourseId AND r.studentId <= :toStudentId)) " +
+            "AND EXISTS (SELECT 1 FROM ArchivedRegistration a WHERE a.studentId = r.studentId AND a.courseId = r.courseId)")
+    int deleteArchived(Long fromCourseId, Long fromStudentId, Long toCourseId, Long toStudentId);
+
+    // Insert trực tiếp, khóa chính (studentId, courseId) chặn đăng ký trùng
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO Registration (studentId, courseId, price, registeredDate) " +
+            "VALUES (:studentId, :courseId, :price, :registeredDate)")
+    int insert(Long studentId, Long courseId, Long price, LocalDateTime registeredDate);
+}
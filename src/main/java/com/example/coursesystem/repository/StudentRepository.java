@@ -1,12 +1,54 @@
 package com.example.coursesystem.repository;
 
+import com.example.coursesystem.dto.OngoingCoursesDrift;
 import com.example.coursesystem.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     Optional<Student> findByEmail(String email);
+
+    @Query("SELECT s.id FROM Student s WHERE s.email = :email")
+    Optional<Long> findIdByEmail(String email);
+
+    List<Student> findByEmailIn(Collection<String> emails);
+
+    @Query("SELECT s.scheduleVersion FROM Student s WHERE s.id = :studentId")
+    Optional<Long> findScheduleVersion(Long studentId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Student s SET s.ongoingCourses = s.ongoingCourses + :delta WHERE s.id = :studentId")
+    int adjustOngoingCourses(Long studentId, int delta);
+
+    // Cập nhật mọi học viên của khóa học khi khóa học bắt đầu hoặc kết thúc
+    @Transactional
+    @Modifying
+    @Query("UPDATE Student s SET s.ongoingCourses = s.ongoingCourses + :delta " +
+            "WHERE s.id IN (SELECT r.studentId FROM Registration r WHERE r.courseId = :courseId)")
+    int adjustOngoingCoursesOfCourse(Long courseId, int delta);
+
+    // Cùng điều kiện với RegistrationRepository.countOngoingCoursesByStudentId
+    @Query("SELECT s.id AS studentId, s.ongoingCourses AS stored, " +
+            "(SELECT COUNT(r) FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE r.studentId = s.id AND c.startTime <= :now AND c.endTime > :now) AS expected " +
+            "FROM Student s " +
+            "WHERE s.ongoingCourses <> (SELECT COUNT(r) FROM Registration r JOIN Course c ON r.courseId = c.id " +
+            "WHERE r.studentId = s.id AND c.startTime <= :now AND c.endTime > :now)")
+    List<OngoingCoursesDrift> findOngoingCoursesDrift(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Student s SET s.ongoingCourses = :expected WHERE s.id = :studentId AND s.ongoingCourses = :stored")
+    int correctOngoingCourses(Long studentId, int stored, int expected);
 }
\ No newline at end of file
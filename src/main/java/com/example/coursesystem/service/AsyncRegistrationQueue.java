@@ -0,0 +1,171 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.BulkRegistrationResult;
+import com.example.coursesystem.dto.RegistrationTicket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Chế độ đăng ký bất đồng bộ cho lúc mở khóa học đông người: request chỉ vào hàng đợi có giới hạn,
+// một luồng ghi lấy ra từng lô và commit cả lô trong một transaction qua BulkRegistrationService
+// (cùng quy tắc với registerCourse: kiểm tra, giảm giá, chặn đăng ký trùng, giữ chỗ)
+@Service
+@ConditionalOnProperty(name = "registration.async.enabled", havingValue = "true")
+public class AsyncRegistrationQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncRegistrationQueue.class);
+
+    private record Pending(String ticketId, BulkRegistrationRequest request) {
+    }
+
+    private final BulkRegistrationService bulkRegistrationService;
+    private final BlockingQueue<Pending> queue;
+    private final Cache<String, RegistrationTicket> tickets;
+    private final int maxBatchSize;
+    private final Duration shutdownTimeout;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public AsyncRegistrationQueue(BulkRegistrationService bulkRegistrationService, MeterRegistry meterRegistry,
+                                  @Value("${registration.async.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${registration.async.max-batch-size:500}") int maxBatchSize,
+                                  @Value("${registration.async.ticket-ttl:10m}") Duration ticketTtl,
+                                  @Value("${registration.async.max-tickets:100000}") long maxTickets,
+                                  @Value("${registration.async.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.bulkRegistrationService = bulkRegistrationService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(maxTickets)
+                .expireAfterWrite(ticketTtl)
+                .build();
+        Gauge.builder("registration.async.queue", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Rỗng khi hàng đợi đã đầy
+    public Optional<RegistrationTicket> submit(BulkRegistrationRequest request) {
+        if (request.getEmail() == null || request.getEmail().isBlank() || request.getCourseId() == null) {
+            throw new IllegalArgumentException("Thiếu email hoặc mã khóa học");
+        }
+        RegistrationTicket ticket = RegistrationTicket.pending(UUID.randomUUID().toString(), request);
+        tickets.put(ticket.getId(), ticket);
+        if (!running || !queue.offer(new Pending(ticket.getId(), request))) {
+            tickets.invalidate(ticket.getId());
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    public Optional<RegistrationTicket> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketId));
+    }
+
+    // Chờ request đầu tiên rồi lấy thêm những gì đã có sẵn trong hàng đợi; trả về số request đã xử lý
+    int drain(long timeout, TimeUnit unit) throws InterruptedException {
+        Pending first = queue.poll(timeout, unit);
+        if (first == null) {
+            return 0;
+        }
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - 1);
+        process(batch);
+        return batch.size();
+    }
+
+    private void process(List<Pending> batch) {
+        List<BulkRegistrationRequest> requests = batch.stream().map(Pending::request).toList();
+        List<BulkRegistrationResult> results;
+        try {
+            results = bulkRegistrationService.registerCourses(requests);
+        } catch (IllegalArgumentException e) {
+            // Cả lô bị rollback (đăng ký trùng với một request đồng bộ chen vào): xử lý lại từng request
+            results = requests.stream().map(this::registerOne).toList();
+        } catch (RuntimeException e) {
+            log.error("Không ghi được lô {} đăng ký", batch.size(), e);
+            results = requests.stream()
+                    .map(request -> BulkRegistrationResult.failure(request, "Đăng ký thất bại, vui lòng thử lại"))
+                    .toList();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            String ticketId = batch.get(i).ticketId();
+            tickets.put(ticketId, RegistrationTicket.completed(ticketId, results.get(i)));
+        }
+    }
+
+    private BulkRegistrationResult registerOne(BulkRegistrationRequest request) {
+        try {
+            return bulkRegistrationService.registerCourses(List.of(request)).get(0);
+        } catch (IllegalArgumentException e) {
+            return BulkRegistrationResult.failure(request, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Không ghi được đăng ký {} - {}", request.getEmail(), request.getCourseId(), e);
+            return BulkRegistrationResult.failure(request, "Đăng ký thất bại, vui lòng thử lại");
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "registration-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Ngừng nhận request mới, ghi nốt những gì còn trong hàng đợi trong tối đa shutdown-timeout,
+    // quá hạn thì ngắt luồng ghi để không treo lúc tắt (lô đang ghi dở sẽ rollback)
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeout.toMillis());
+            if (writer.isAlive()) {
+                log.warn("Luồng ghi chưa xong sau {}, bỏ {} request còn trong hàng đợi", shutdownTimeout, queue.size());
+                writer.interrupt();
+            }
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                drain(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Luồng ghi chỉ có một: không để lỗi bất ngờ làm dừng hẳn việc lấy hàng đợi
+                log.error("Lỗi khi xử lý hàng đợi đăng ký", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.StudentScheduleCache;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.BulkRegistrationResult;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.RegistrationId;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.CourseRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import com.example.coursesystem.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class BulkRegistrationService {
+
+    private final RegistrationRepository registrationRepository;
+    private final CourseRepository courseRepository;
+    private final StudentRepository studentRepository;
+    private final OngoingCourseCounter ongoingCourseCounter;
+    private final CourseStatsService courseStatsService;
+    private final StudentScheduleCache studentScheduleCache;
+    private final ReadYourWrites readYourWrites;
+    private final ChangeFeed changeFeed;
+
+    @Autowired
+    public BulkRegistrationService(RegistrationRepository registrationRepository, CourseRepository courseRepository, StudentRepository studentRepository, OngoingCourseCounter ongoingCourseCounter, CourseStatsService courseStatsService, StudentScheduleCache studentScheduleCache, ReadYourWrites readYourWrites, ChangeFeed changeFeed) {
+        this.registrationRepository = registrationRepository;
+        this.courseRepository = courseRepository;
+        this.studentRepository = studentRepository;
+        this.ongoingCourseCounter = ongoingCourseCounter;
+        this.courseStatsService = courseStatsService;
+        this.studentScheduleCache = studentScheduleCache;
+        this.readYourWrites = readYourWrites;
+        this.changeFeed = changeFeed;
+    }
+
+    // Số câu lệnh không phụ thuộc số dòng: IN học viên (kèm số khóa đang học), IN khóa học,
+    // các đăng ký đã có, một UPDATE giữ chỗ mỗi khóa giới hạn và các INSERT được gom batch
+    @Transactional
+    public List<BulkRegistrationResult> registerCourses(List<BulkRegistrationRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Set<String> emails = requests.stream().map(BulkRegistrationRequest::getEmail).collect(Collectors.toSet());
+        Set<Long> courseIds = requests.stream().map(BulkRegistrationRequest::getCourseId).collect(Collectors.toSet());
+
+        Map<String, Student> students = studentRepository.findByEmailIn(emails).stream()
+                .collect(Collectors.toMap(Student::getEmail, Function.identity(), (first, second) -> first));
+        Map<Long, Course> courses = courseRepository.findAllById(courseIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+
+        Set<Long> studentIds = students.values().stream().map(Student::getId).collect(Collectors.toSet());
+        Map<Long, Long> scheduleVersions = students.values().stream()
+                .collect(Collectors.toMap(Student::getId, Student::getScheduleVersion, (first, second) -> first));
+        Set<RegistrationId> registered = new HashSet<>();
+        if (!studentIds.isEmpty() && !courses.isEmpty()) {
+            for (Registration registration : registrationRepository.findByStudentIdInAndCourseIdIn(studentIds, courses.keySet())) {
+                registered.add(registration.getId());
+            }
+        }
+
+        studentScheduleCache.preload(scheduleVersions);
+
+        List<BulkRegistrationResult> results = new ArrayList<>(requests.size());
+        Map<Long, Integer> seatsLeft = new HashMap<>();
+        // Theo thứ tự id để các lô đồng thời khóa dòng khóa học cùng một thứ tự
+        Map<Long, List<Integer>> rowsByLimitedCourse = new TreeMap<>();
+        Map<Integer, Registration> accepted = new HashMap<>();
+
+        for (BulkRegistrationRequest request : requests) {
+            Student student = students.get(request.getEmail());
+            Course course = courses.get(request.getCourseId());
+            String error = null;
+            if (student == null) {
+                error = "Không tìm thấy học viên";
+            } else if (course == null) {
+                error = "Không tìm thấy khóa học";
+            } else if (course.hasStarted()) {
+                error = "Không thể đăng ký khóa học đã bắt đầu";
+            } else if (registered.contains(new RegistrationId(student.getId(), course.getId()))) {
+                error = "Đã đăng ký khóa học này rồi";
+            } else if (course.getCapacity() != null
+                    && seatsLeft.computeIfAbsent(course.getId(), id -> course.getCapacity() - course.getSeatsTaken()) <= 0) {
+                error = "Khóa học đã hết chỗ";
+            } else {
+                try {
+                    studentScheduleCache.reserve(student.getId(), student.getScheduleVersion(), course);
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+            }
+
+            if (error != null) {
+                results.add(BulkRegistrationResult.failure(request, error));
+                continue;
+            }
+
+            Long finalPrice = RegistrationService.discountedPrice(course.getPrice(), student.getOngoingCourses());
+            registered.add(new RegistrationId(student.getId(), course.getId()));
+            if (course.getCapacity() != null) {
+                seatsLeft.merge(course.getId(), -1, Integer::sum);
+                rowsByLimitedCourse.computeIfAbsent(course.getId(), id -> new ArrayList<>()).add(results.size());
+            }
+            accepted.put(results.size(), Registration.builder()
+                    .studentId(student.getId())
+                    .courseId(course.getId())
+                    .price(finalPrice)
+                    .registeredDate(now)
+                    .build());
+            results.add(BulkRegistrationResult.success(request, finalPrice));
+        }
+
+        // Lịch của học viên có thể đã đổi ở instance khác sau khi được đọc: các dòng trùng lịch với database bị từ chối
+        Map<Long, List<Course>> reservedByStudent = new TreeMap<>();
+        accepted.values().forEach(registration -> reservedByStudent
+                .computeIfAbsent(registration.getStudentId(), id -> new ArrayList<>())
+                .add(courses.get(registration.getCourseId())));
+        Set<RegistrationId> conflicts = studentScheduleCache.confirm(scheduleVersions, reservedByStudent);
+        if (!conflicts.isEmpty()) {
+            accepted.entrySet().removeIf(entry -> {
+                if (!conflicts.contains(entry.getValue().getId())) {
+                    return false;
+                }
+                results.set(entry.getKey(), BulkRegistrationResult.failure(requests.get(entry.getKey()), "Trùng lịch với khóa học đã đăng ký"));
+                rowsByLimitedCourse.getOrDefault(entry.getValue().getCourseId(), new ArrayList<>()).remove(entry.getKey());
+                return true;
+            });
+            rowsByLimitedCourse.values().removeIf(List::isEmpty);
+        }
+
+        // Mỗi khóa học có giới hạn chỗ giữ chỗ một lần cho cả lô; nếu đăng ký khác đã lấy bớt chỗ
+        // thì chỉ các dòng sau cùng vượt quá số chỗ còn lại bị từ chối, như khi đăng ký lẻ
+        rowsByLimitedCourse.forEach((courseId, rows) -> {
+            int granted = courseRepository.claimAvailableSeats(courseId, rows.size());
+            if (granted < rows.size()) {
+                for (Integer row : rows.subList(granted, rows.size())) {
+                    studentScheduleCache.release(accepted.remove(row).getStudentId(), courses.get(courseId));
+                    results.set(row, BulkRegistrationResult.failure(requests.get(row), "Khóa học đã hết chỗ"));
+                }
+            }
+        });
+
+        try {
+            registrationRepository.saveAllAndFlush(accepted.values());
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Đã đăng ký khóa học này rồi");
+        }
+        courseStatsService.registrationsAdded(accepted.values());
+        changeFeed.registeredAll(accepted.values());
+        for (Registration registration : accepted.values()) {
+            ongoingCourseCounter.registrationAdded(registration.getStudentId(), courses.get(registration.getCourseId()));
+        }
+        for (BulkRegistrationResult result : results) {
+            if (result.isSuccess()) {
+                readYourWrites.recordWrite(result.getEmail());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.CourseSearchIndex;
+import com.example.coursesystem.cache.StudentIdCache;
+import com.example.coursesystem.datasource.ReadWriteRoutingDataSource;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.dto.CourseSummary;
+import com.example.coursesystem.dto.KeysetCursor;
+import com.example.coursesystem.dto.KeysetPage;
+import com.example.coursesystem.dto.RegistrationSummary;
+import com.example.coursesystem.repository.ArchivedRegistrationRepository;
+import com.example.coursesystem.repository.CourseRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Các API đọc: trả DTO thay vì entity, phân trang keyset nên chi phí mỗi trang không phụ thuộc vị trí trang.
+// readOnly nên được đọc từ replica nếu có cấu hình.
+@Service
+public class CatalogService {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private final CourseRepository courseRepository;
+    private final RegistrationRepository registrationRepository;
+    private final ArchivedRegistrationRepository archivedRegistrationRepository;
+    private final StudentIdCache studentIdCache;
+    private final ReadYourWrites readYourWrites;
+    private final CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    public CatalogService(CourseRepository courseRepository, RegistrationRepository registrationRepository, ArchivedRegistrationRepository archivedRegistrationRepository, StudentIdCache studentIdCache, ReadYourWrites readYourWrites, CourseSearchIndex courseSearchIndex) {
+        this.courseRepository = courseRepository;
+        this.registrationRepository = registrationRepository;
+        this.archivedRegistrationRepository = archivedRegistrationRepository;
+        this.studentIdCache = studentIdCache;
+        this.readYourWrites = readYourWrites;
+        this.courseSearchIndex = courseSearchIndex;
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseSummary> getUpcomingCourses(String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        LocalDateTime now = LocalDateTime.now();
+        List<CourseSummary> rows;
+        if (cursor == null) {
+            rows = courseRepository.findUpcomingSummaries(now, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = courseRepository.findUpcomingSummariesAfter(now, after.getStartTime(), after.getId(), limit);
+        }
+        return KeysetPage.of(rows, pageSize, course -> new KeysetCursor(course.getStartTime(), course.getId()));
+    }
+
+    // Tìm trong chỉ mục bộ nhớ, không chạm database; mặc định chỉ các khóa chưa bắt đầu
+    public List<CourseSummary> searchCourses(String query, LocalDateTime from, LocalDateTime to,
+                                             Long minPrice, Long maxPrice, Integer size) {
+        int limit = pageSize(size);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Khoảng giá không hợp lệ");
+        }
+        return courseSearchIndex.search(query, from != null ? from : LocalDateTime.now(), to, minPrice, maxPrice, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<RegistrationSummary> getRegistrations(String email, String cursor, Integer size) {
+        // Học viên vừa đăng ký/hủy: replica có thể chưa có thay đổi đó
+        if (readYourWrites.wroteRecently(email)) {
+            return ReadWriteRoutingDataSource.onPrimary(() -> loadRegistrations(email, cursor, size));
+        }
+        return loadRegistrations(email, cursor, size);
+    }
+
+    private KeysetPage<RegistrationSummary> loadRegistrations(String email, String cursor, Integer size) {
+        Long studentId = studentIdCache.findIdByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy học viên"));
+        int pageSize = pageSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        List<RegistrationSummary> rows;
+        if (cursor == null) {
+            rows = registrationRepository.findSummariesByStudentId(studentId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = registrationRepository.findSummariesByStudentIdAfter(studentId, after.getStartTime(), after.getId(), limit);
+        }
+        return KeysetPage.of(rows, pageSize, registration -> new KeysetCursor(registration.getStartTime(), registration.getCourseId()));
+    }
+
+    // Đăng ký đã được RegistrationArchiver chuyển sang bảng lưu trữ (khóa kết thúc từ lâu).
+    // Bảng này chỉ thay đổi bởi job lưu trữ nên không cần đọc từ primary
+    @Transactional(readOnly = true)
+    public KeysetPage<RegistrationSummary> getArchivedRegistrations(String email, String cursor, Integer size) {
+        Long studentId = studentIdCache.findIdByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy học viên"));
+        int pageSize = pageSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        List<RegistrationSummary> rows;
+        if (cursor == null) {
+            rows = archivedRegistrationRepository.findSummariesByStudentId(studentId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = archivedRegistrationRepository.findSummariesByStudentIdAfter(studentId, after.getStartTime(), after.getId(), limit);
+        }
+        return KeysetPage.of(rows, pageSize, registration -> new KeysetCursor(registration.getStartTime(), registration.getCourseId()));
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Kích thước trang phải từ 1 đến " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.ChangeBatch;
+import com.example.coursesystem.model.ChangeEvent;
+import com.example.coursesystem.model.ChangeType;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.repository.ChangeEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Change feed cho dashboard (GET /api/changes?since=N):
+// - đăng ký, hủy đăng ký và thay đổi khóa học ghi một dòng change_event trong cùng transaction (outbox);
+//   id của dòng là số thứ tự sự kiện
+// - sự kiện được nạp từ outbox theo thứ tự id vào một ring buffer cố định: ngay sau commit trên instance này
+//   và định kỳ (refresh-interval) để thấy thay đổi từ instance khác
+// - id được cấp trước khi commit nên có thể commit không theo thứ tự: head chỉ tiến qua các id liên tiếp,
+//   id còn thiếu quá gap-timeout thì bỏ qua; nếu sau đó id này lại commit (transaction chỉ chậm), dòng được
+//   ghi lại dưới id mới để mọi client, kể cả client đã đi qua id cũ, nhận sự kiện đúng một lần
+// - client tụt lại quá dung lượng ring nhận resyncRequired, server không giữ thêm gì cho client chậm
+@Service
+public class ChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+    private static final String INSERT = "INSERT INTO change_event (type, course_id, student_id, created_date) VALUES (?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM change_event WHERE id = ?";
+
+    private static final class Waiter {
+        private final long since;
+        private final Consumer<ChangeBatch> listener;
+
+        private Waiter(long since, Consumer<ChangeBatch> listener) {
+            this.since = since;
+            this.listener = listener;
+        }
+    }
+
+    private final ChangeEventRepository changeEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final long gapTimeoutNanos;
+    private final int maxWaiters;
+    private final Counter resyncs;
+    private final Counter skipped;
+    private final Counter republished;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock refreshing = new ReentrantLock();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    // Sự kiện id nằm ở ô id & mask; ids cho biết ô đang giữ id nào, events null là id đã bỏ qua
+    private final long[] ids;
+    private final ChangeEvent[] events;
+    private final int mask;
+    private final Set<Waiter> waiters = new LinkedHashSet<>();
+    // Id bỏ qua vì quá gap-timeout (không biết đã rollback hay chưa): mỗi lần refresh kiểm tra lại
+    private final NavigableSet<Long> unconfirmed = new TreeSet<>();
+
+    private long head;
+    private long maxSeen;
+    // maxSeen -> thời điểm lần đầu đạt tới: id còn thiếu được tính là thiếu từ lúc maxSeen lần đầu vượt qua nó,
+    // nên các id thiếu kề nhau hết gap-timeout cùng lúc thay vì mỗi id chờ thêm một lần
+    private final NavigableMap<Long, Long> seenAt = new TreeMap<>();
+
+    @Autowired
+    public ChangeFeed(ChangeEventRepository changeEventRepository, JdbcTemplate jdbcTemplate, TaskScheduler taskScheduler,
+                      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                      @Value("${changes.capacity:8192}") int capacity,
+                      @Value("${changes.max-batch:500}") int maxBatch,
+                      @Value("${changes.gap-timeout:5s}") Duration gapTimeout,
+                      @Value("${changes.max-waiters:10000}") int maxWaiters) {
+        this.changeEventRepository = changeEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.maxWaiters = maxWaiters;
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.ids = new long[size];
+        this.events = new ChangeEvent[size];
+        this.mask = size - 1;
+        this.resyncs = Counter.builder("changes.resync").register(meterRegistry);
+        this.skipped = Counter.builder("changes.skipped").register(meterRegistry);
+        this.republished = Counter.builder("changes.republished").register(meterRegistry);
+    }
+
+    public void registered(Long studentId, Long courseId) {
+        append(ChangeType.REGISTERED, courseId, studentId);
+    }
+
+    public void unregistered(Long studentId, Long courseId) {
+        append(ChangeType.UNREGISTERED, courseId, studentId);
+    }
+
+    public void registeredAll(Collection<Registration> registrations) {
+        if (registrations.isEmpty()) {
+            return;
+        }
+        List<Registration> rows = List.copyOf(registrations);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setString(1, ChangeType.REGISTERED.name());
+                        statement.setLong(2, rows.get(i).getCourseId());
+                        statement.setLong(3, rows.get(i).getStudentId());
+                        statement.setTimestamp(4, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder);
+        // Driver không trả đủ khóa cho batch thì các id còn lại hết hạn theo gap-timeout
+        publishAfterCompletion(keyHolder.getKeyList().stream()
+                .map(keys -> keys.values().stream().findFirst().orElse(null))
+                .filter(Number.class::isInstance)
+                .map(key -> ((Number) key).longValue())
+                .toList());
+    }
+
+    public void courseChanged(ChangeType type, Long courseId) {
+        append(type, courseId, null);
+    }
+
+    // Ghi bằng JDBC trên connection của transaction hiện tại: dùng được cả trong entity listener (đang flush)
+    private void append(ChangeType type, Long courseId, Long studentId) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> insert(connection, type, courseId, studentId, LocalDateTime.now()), keyHolder);
+        Number id = keyHolder.getKey();
+        publishAfterCompletion(id != null ? List.of(id.longValue()) : List.of());
+    }
+
+    private static PreparedStatement insert(Connection connection, ChangeType type, Long courseId, Long studentId,
+                                            LocalDateTime createdDate) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"id"});
+        statement.setString(1, type.name());
+        statement.setLong(2, courseId);
+        if (studentId != null) {
+            statement.setLong(3, studentId);
+        } else {
+            statement.setNull(3, Types.BIGINT);
+        }
+        statement.setTimestamp(4, Timestamp.valueOf(createdDate));
+        return statement;
+    }
+
+    // Commit: đọc outbox. Rollback: id đã cấp sẽ không bao giờ xuất hiện, bỏ qua ngay thay vì chờ gap-timeout
+    private void publishAfterCompletion(List<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshSoon();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    refreshSoon();
+                } else if (!ids.isEmpty()) {
+                    skip(ids);
+                }
+            }
+        });
+    }
+
+    // Nhiều commit liên tiếp chỉ cần một lần đọc outbox, chạy ngoài thread của request
+    private void refreshSoon() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::refresh, Instant.now());
+        }
+    }
+
+    // Sau khởi động chỉ nạp lại phần outbox vừa với ring; client có since cũ hơn sẽ phải resync
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        changeEventRepository.findTopByOrderByIdDesc().ifPresent(last -> {
+            lock.lock();
+            try {
+                head = Math.max(0, last.getId() - ids.length);
+                maxSeen = head;
+            } finally {
+                lock.unlock();
+            }
+        });
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${changes.refresh-interval:1s}", initialDelayString = "${changes.refresh-interval:1s}")
+    public void refresh() {
+        refreshQueued.set(false);
+        refreshing.lock();
+        try {
+            republishLate();
+            long from = head();
+            List<ChangeEvent> loaded = changeEventRepository.findByIdGreaterThanOrderById(from, PageRequest.ofSize(ids.length));
+            List<Waiter> ready;
+            lock.lock();
+            try {
+                for (ChangeEvent event : loaded) {
+                    store(event.getId(), event);
+                }
+                ready = advance();
+            } finally {
+                lock.unlock();
+            }
+            notify(ready);
+        } catch (RuntimeException e) {
+            log.warn("Không đọc được change_event", e);
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    // Id bỏ qua đã commit muộn: client đã đi qua id cũ sẽ không đọc lại nó, nên xóa dòng cũ và ghi bản sao
+    // dưới id mới trong cùng transaction. Chỉ một instance xóa được dòng cũ nên bản sao không bị ghi hai lần
+    private void republishLate() {
+        List<Long> pending;
+        lock.lock();
+        try {
+            // Id đã ra khỏi ring thì client nào cũng đã phải resync
+            unconfirmed.headSet(head - ids.length, true).clear();
+            pending = new ArrayList<>(unconfirmed);
+        } finally {
+            lock.unlock();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (ChangeEvent late : changeEventRepository.findAllById(pending)) {
+            Boolean copied = transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update(DELETE, late.getId()) == 0) {
+                    return false;
+                }
+                jdbcTemplate.update(connection -> insert(connection, late.getType(), late.getCourseId(),
+                        late.getStudentId(), late.getCreatedDate()));
+                return true;
+            });
+            lock.lock();
+            try {
+                unconfirmed.remove(late.getId());
+            } finally {
+                lock.unlock();
+            }
+            if (Boolean.TRUE.equals(copied)) {
+                republished.increment();
+                log.info("Sự kiện {} commit sau gap-timeout, đã ghi lại dưới id mới", late.getId());
+            }
+        }
+    }
+
+    void skip(long id) {
+        skip(List.of(id));
+    }
+
+    private void skip(List<Long> rolledBack) {
+        List<Waiter> ready;
+        lock.lock();
+        try {
+            for (Long id : rolledBack) {
+                unconfirmed.remove(id);
+                store(id, null);
+            }
+            ready = advance();
+        } finally {
+            lock.unlock();
+        }
+        notify(ready);
+    }
+
+    // Outbox chỉ cần giữ những gì ring còn giữ
+    @Scheduled(fixedDelayString = "${changes.prune-interval:10m}", initialDelayString = "${changes.prune-interval:10m}")
+    public void prune() {
+        long upTo = head() - ids.length;
+        if (upTo > 0) {
+            changeEventRepository.deleteUpTo(upTo);
+        }
+    }
+
+    public ChangeBatch read(long since) {
+        lock.lock();
+        try {
+            return readLocked(since);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gọi listener ngay nếu đã có sự kiện sau since, nếu không thì gọi khi có (trên thread của refresh).
+    // Trả về hàm hủy chờ, hoặc null nếu đã có quá nhiều client đang chờ
+    public Runnable whenAvailable(long since, Consumer<ChangeBatch> listener) {
+        ChangeBatch batch;
+        lock.lock();
+        try {
+            batch = readLocked(since);
+            if (batch.getNext() == since && !batch.isResyncRequired()) {
+                if (waiters.size() >= maxWaiters) {
+                    return null;
+                }
+                Waiter waiter = new Waiter(since, listener);
+                waiters.add(waiter);
+                return () -> {
+                    lock.lock();
+                    try {
+                        waiters.remove(waiter);
+                    } finally {
+                        lock.unlock();
+                    }
+                };
+            }
+        } finally {
+            lock.unlock();
+        }
+        listener.accept(batch);
+        return () -> {
+        };
+    }
+
+    public long head() {
+        lock.lock();
+        try {
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ChangeBatch readLocked(long since) {
+        if (since >= head) {
+            return ChangeBatch.of(List.of(), since);
+        }
+        long upTo = Math.min(head, since + maxBatch);
+        List<ChangeEvent> batch = new ArrayList<>();
+        for (long id = since + 1; id <= upTo; id++) {
+            int slot = slot(id);
+            // Ô đã bị sự kiện mới hơn ghi đè
+            if (ids[slot] != id) {
+                resyncs.increment();
+                return ChangeBatch.resync(head);
+            }
+            if (events[slot] != null) {
+                batch.add(events[slot]);
+            }
+        }
+        return ChangeBatch.of(batch, upTo);
+    }
+
+    // Sự kiện ngoài (head, head + dung lượng] được bỏ qua, lần refresh sau đọc lại; event null là id bị bỏ qua
+    private void store(long id, ChangeEvent event) {
+        if (id <= head || id > head + ids.length) {
+            return;
+        }
+        int slot = slot(id);
+        ids[slot] = id;
+        events[slot] = event;
+        if (id > maxSeen) {
+            maxSeen = id;
+            seenAt.put(id, System.nanoTime());
+        }
+    }
+
+    // Tiến head qua các id liên tiếp đã có; trả về các client đang chờ có sự kiện mới
+    private List<Waiter> advance() {
+        long before = head;
+        while (head < maxSeen) {
+            long next = head + 1;
+            int slot = slot(next);
+            if (ids[slot] != next) {
+                Map.Entry<Long, Long> firstMissing = seenAt.higherEntry(next);
+                if (firstMissing != null && System.nanoTime() - firstMissing.getValue() < gapTimeoutNanos) {
+                    break;
+                }
+                // Transaction đã rollback hoặc chưa commit quá lâu: bỏ qua id này, refresh sau kiểm tra lại
+                ids[slot] = next;
+                events[slot] = null;
+                unconfirmed.add(next);
+                skipped.increment();
+            }
+            head = next;
+        }
+        seenAt.headMap(head, true).clear();
+        if (head == before || waiters.isEmpty()) {
+            return List.of();
+        }
+        List<Waiter> ready = new ArrayList<>();
+        for (Waiter waiter : waiters) {
+            if (waiter.since < head) {
+                ready.add(waiter);
+            }
+        }
+        waiters.removeAll(ready);
+        return ready;
+    }
+
+    private void notify(List<Waiter> ready) {
+        for (Waiter waiter : ready) {
+            waiter.listener.accept(read(waiter.since));
+        }
+    }
+
+    private int slot(long id) {
+        return (int) (id & mask);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.ChangeType;
+import com.example.coursesystem.model.Course;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Thay đổi khóa học qua JPA vào change feed, cùng transaction với thay đổi đó
+public class ChangeFeedListener {
+
+    private final ObjectProvider<ChangeFeed> changeFeed;
+
+    public ChangeFeedListener(ObjectProvider<ChangeFeed> changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @PostPersist
+    void onCreate(Course course) {
+        changeFeed.ifAvailable(feed -> feed.courseChanged(ChangeType.COURSE_CREATED, course.getId()));
+    }
+
+    @PostUpdate
+    void onUpdate(Course course) {
+        changeFeed.ifAvailable(feed -> feed.courseChanged(ChangeType.COURSE_UPDATED, course.getId()));
+    }
+
+    @PostRemove
+    void onRemove(Course course) {
+        changeFeed.ifAvailable(feed -> feed.courseChanged(ChangeType.COURSE_DELETED, course.getId()));
+    }
+}
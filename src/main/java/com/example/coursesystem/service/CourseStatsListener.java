@@ -0,0 +1,30 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.Course;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Tạo dòng thống kê cho khóa học mới ngay trước commit, cùng transaction với INSERT khóa học
+public class CourseStatsListener {
+
+    private final ObjectProvider<CourseStatsService> courseStatsService;
+
+    public CourseStatsListener(ObjectProvider<CourseStatsService> courseStatsService) {
+        this.courseStatsService = courseStatsService;
+    }
+
+    @PostPersist
+    void onCreate(Course course) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        courseStatsService.ifAvailable(service -> TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                service.courseCreated(course.getId());
+            }
+        }));
+    }
+}
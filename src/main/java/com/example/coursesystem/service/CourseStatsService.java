@@ -0,0 +1,114 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.CourseStatsSummary;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.repository.CourseStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Thống kê số đăng ký/doanh thu theo khóa học, cập nhật trong cùng transaction với đăng ký/hủy
+// nên dashboard không phải GROUP BY trên cả bảng Registration.
+@Service
+public class CourseStatsService {
+
+    private static final String INSERT_STRIPE =
+            "INSERT INTO course_stats (course_id, stripe, registrations, revenue) VALUES (?, ?, 0, 0)";
+
+    private final CourseStatsRepository courseStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int stripes;
+
+    @Autowired
+    public CourseStatsService(CourseStatsRepository courseStatsRepository, JdbcTemplate jdbcTemplate,
+                              @Value("${course-stats.stripes:16}") int stripes) {
+        this.courseStatsRepository = courseStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = stripes;
+    }
+
+    // Tạo sẵn các dòng của khóa học mới trong cùng transaction, để đăng ký đồng thời chỉ còn UPDATE
+    public void courseCreated(Long courseId) {
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            courseStatsRepository.createStripe(courseId, stripe);
+        }
+    }
+
+    public void registrationAdded(Long studentId, Long courseId, Long price) {
+        add(courseId, stripe(studentId), 1, price);
+    }
+
+    // Đăng ký theo lô: cộng dồn theo (khóa học, dòng) rồi một câu lệnh cho mỗi cặp, để lô lớn của một khóa
+    // vẫn rải đều trên các dòng như đăng ký lẻ (tối đa stripes câu lệnh mỗi khóa)
+    public void registrationsAdded(Collection<Registration> registrations) {
+        Map<StripeKey, long[]> deltas = new LinkedHashMap<>();
+        for (Registration registration : registrations) {
+            long[] delta = deltas.computeIfAbsent(
+                    new StripeKey(registration.getCourseId(), stripe(registration.getStudentId())), key -> new long[2]);
+            delta[0]++;
+            delta[1] += registration.getPrice();
+        }
+        deltas.forEach((key, delta) -> add(key.courseId(), key.stripe(), delta[0], delta[1]));
+    }
+
+    public void registrationRemoved(Long studentId, Long courseId, Long price) {
+        add(courseId, stripe(studentId), -1, -price);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CourseStatsSummary> getStats() {
+        return courseStatsRepository.findSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public CourseStatsSummary getStats(Long courseId) {
+        return courseStatsRepository.findSummary(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy thống kê khóa học"));
+    }
+
+    // Tính lại từ đầu và tạo đủ dòng cho mọi khóa học (kể cả khóa có trước khi có thống kê).
+    // SERIALIZABLE để đăng ký đồng thời không xen vào giữa DELETE và INSERT: chúng chờ rebuild commit
+    // (hoặc một bên bị chọn làm nạn nhân deadlock và thất bại) thay vì bị đếm lệch.
+    // Trả về số khóa học có đăng ký.
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public int rebuild() {
+        courseStatsRepository.deleteAllStats();
+        int courses = courseStatsRepository.insertFromRegistrations();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            courseStatsRepository.createMissingStripes(stripe);
+        }
+        return courses;
+    }
+
+    // Khóa học được thêm ngoài JPA (không qua courseCreated) thì tạo dòng ở lần dùng đầu tiên.
+    // Hai đăng ký đầu tiên đồng thời có thể cùng INSERT (ON CONFLICT DO NOTHING thành MERGE không nguyên tử
+    // trên SQL Server): bên thua nhận lỗi trùng khóa thì dòng đã có, chỉ cần UPDATE lại. INSERT đi qua
+    // JdbcTemplate vì lỗi từ câu lệnh JPA sẽ đánh dấu rollback cả transaction.
+    private void add(Long courseId, int stripe, long registrations, long revenue) {
+        if (courseStatsRepository.add(courseId, stripe, registrations, revenue) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_STRIPE, courseId, stripe);
+            } catch (DuplicateKeyException e) {
+                // Đăng ký đồng thời đã tạo dòng
+            }
+            courseStatsRepository.add(courseId, stripe, registrations, revenue);
+        }
+    }
+
+    // Chỉ tổng theo khóa có ý nghĩa: một dòng có thể âm, ví dụ hủy đăng ký sau rebuild (mọi thứ nằm ở dòng 0)
+    private int stripe(Long studentId) {
+        return (int) Math.floorMod(studentId, (long) stripes);
+    }
+
+    private record StripeKey(Long courseId, int stripe) {
+    }
+}
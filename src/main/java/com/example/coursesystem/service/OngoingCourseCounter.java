@@ -0,0 +1,96 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.CatalogVersion;
+import com.example.coursesystem.dto.OngoingCoursesDrift;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.CoursePhase;
+import com.example.coursesystem.repository.CourseRepository;
+import com.example.coursesystem.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Duy trì Student.ongoingCourses để việc xét giảm giá chỉ cần đọc một cột:
+// - đăng ký/hủy ở khóa đang diễn ra cộng/trừ trực tiếp
+// - khóa học bắt đầu/kết thúc cộng/trừ cho mọi học viên của khóa (OngoingCourseScheduler gọi advance)
+// - reconcile so với cách đếm bằng truy vấn và sửa các dòng bị lệch
+@Service
+public class OngoingCourseCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(OngoingCourseCounter.class);
+
+    private final CourseRepository courseRepository;
+    private final StudentRepository studentRepository;
+    private final CatalogVersion catalogVersion;
+    private final Counter corrections;
+
+    @Autowired
+    public OngoingCourseCounter(CourseRepository courseRepository, StudentRepository studentRepository,
+                                CatalogVersion catalogVersion, MeterRegistry meterRegistry) {
+        this.courseRepository = courseRepository;
+        this.studentRepository = studentRepository;
+        this.catalogVersion = catalogVersion;
+        this.corrections = Counter.builder("registration.ongoing.corrections").register(meterRegistry);
+    }
+
+    public void registrationAdded(Long studentId, Course course) {
+        if (course.getPhase() == CoursePhase.ONGOING) {
+            studentRepository.adjustOngoingCourses(studentId, 1);
+        }
+    }
+
+    public void registrationRemoved(Long studentId, Course course) {
+        if (course.getPhase() == CoursePhase.ONGOING) {
+            studentRepository.adjustOngoingCourses(studentId, -1);
+        }
+    }
+
+    // Chuyển giai đoạn cho các khóa đã tới mốc; trả về số khóa đã chuyển
+    @Transactional
+    public int advance() {
+        LocalDateTime now = LocalDateTime.now();
+        int changed = 0;
+        for (Course course : courseRepository.findPhaseChangesDue(now, CoursePhase.UPCOMING, CoursePhase.ONGOING)) {
+            CoursePhase from = course.getPhase();
+            CoursePhase to = course.getEndTime().isAfter(now) ? CoursePhase.ONGOING : CoursePhase.FINISHED;
+            // Instance khác đã chuyển khóa này
+            if (courseRepository.changePhase(course.getId(), from, to) == 0) {
+                continue;
+            }
+            int delta = (to == CoursePhase.ONGOING ? 1 : 0) - (from == CoursePhase.ONGOING ? 1 : 0);
+            if (delta != 0) {
+                studentRepository.adjustOngoingCoursesOfCourse(course.getId(), delta);
+            }
+            // changePhase là UPDATE hàng loạt nên không qua entity listener
+            if (from == CoursePhase.UPCOMING) {
+                catalogVersion.bump();
+            }
+            changed++;
+        }
+        return changed;
+    }
+
+    // Trả về số học viên đã được sửa
+    @Transactional
+    public int reconcile() {
+        List<OngoingCoursesDrift> drifts = studentRepository.findOngoingCoursesDrift(LocalDateTime.now());
+        int corrected = 0;
+        for (OngoingCoursesDrift drift : drifts) {
+            // Bỏ qua dòng vừa được cập nhật song song, lần đối soát sau sẽ kiểm tra lại
+            corrected += studentRepository.correctOngoingCourses(drift.getStudentId(),
+                    drift.getStored(), drift.getExpected().intValue());
+        }
+        if (corrected > 0) {
+            log.warn("Đã sửa số khóa đang học của {} học viên", corrected);
+            corrections.increment(corrected);
+        }
+        return corrected;
+    }
+}
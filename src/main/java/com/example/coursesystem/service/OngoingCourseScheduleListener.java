@@ -0,0 +1,37 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.Course;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Tính lại mốc hẹn sau khi khóa học mới/đã sửa được commit; ObjectProvider như CourseCacheInvalidator
+public class OngoingCourseScheduleListener {
+
+    private final ObjectProvider<OngoingCourseScheduler> scheduler;
+
+    public OngoingCourseScheduleListener(ObjectProvider<OngoingCourseScheduler> scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onChange(Course course) {
+        scheduler.ifAvailable(this::courseChangedAfterCommit);
+    }
+
+    private void courseChangedAfterCommit(OngoingCourseScheduler scheduler) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            scheduler.courseChanged();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduler.courseChanged();
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.CoursePhase;
+import com.example.coursesystem.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hẹn OngoingCourseCounter.advance đúng mốc bắt đầu/kết thúc gần nhất thay vì quét định kỳ;
+// khi khóa học được tạo/sửa thì tính lại mốc (OngoingCourseScheduleListener)
+@Component
+public class OngoingCourseScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(OngoingCourseScheduler.class);
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final OngoingCourseCounter ongoingCourseCounter;
+    private final CourseRepository courseRepository;
+    private final TaskScheduler taskScheduler;
+    // advance() chạy truy vấn khi đang giữ khóa: synchronized sẽ ghim virtual thread trong suốt truy vấn
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ScheduledFuture<?> next;
+
+    @Autowired
+    public OngoingCourseScheduler(OngoingCourseCounter ongoingCourseCounter, CourseRepository courseRepository, TaskScheduler taskScheduler) {
+        this.ongoingCourseCounter = ongoingCourseCounter;
+        this.courseRepository = courseRepository;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        advance();
+    }
+
+    public void courseChanged() {
+        taskScheduler.schedule(this::advance, Instant.now());
+    }
+
+    public void advance() {
+        lock.lock();
+        try {
+            ongoingCourseCounter.advance();
+            schedule(courseRepository.findNextPhaseBoundary(CoursePhase.UPCOMING, CoursePhase.ONGOING)
+                    .map(boundary -> boundary.atZone(ZoneId.systemDefault()).toInstant())
+                    .orElse(null));
+        } catch (RuntimeException e) {
+            log.warn("Không cập nhật được số khóa đang học, thử lại sau {}", RETRY_DELAY, e);
+            schedule(Instant.now().plus(RETRY_DELAY));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${registration.ongoing-counter.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        advance();
+        ongoingCourseCounter.reconcile();
+    }
+
+    private void schedule(Instant at) {
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = at != null ? taskScheduler.schedule(this::advance, at) : null;
+    }
+}
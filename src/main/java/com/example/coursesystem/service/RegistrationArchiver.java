@@ -0,0 +1,116 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.RegistrationId;
+import com.example.coursesystem.repository.ArchivedRegistrationRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Chuyển đăng ký của các khóa đã kết thúc quá retention sang bảng registration_archive để bảng registration
+// (và index của nó) chỉ lớn theo số đăng ký còn dùng tới.
+// - mỗi lô batchSize dòng liền nhau theo khóa chính, copy + xóa trong một transaction ngắn rồi nghỉ batchDelay
+// - đăng ký của khóa đã bắt đầu không còn được thêm/hủy nên không tranh chấp với luồng đăng ký
+// - thống kê khóa học giữ nguyên; lịch học và số khóa đang học chỉ dùng khóa chưa kết thúc
+@Service
+public class RegistrationArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationArchiver.class);
+
+    private final RegistrationRepository registrationRepository;
+    private final ArchivedRegistrationRepository archivedRegistrationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration batchDelay;
+    private final Counter archived;
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Autowired
+    public RegistrationArchiver(RegistrationRepository registrationRepository,
+                                ArchivedRegistrationRepository archivedRegistrationRepository,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                @Value("${registration.archive.retention:180d}") Duration retention,
+                                @Value("${registration.archive.batch-size:500}") int batchSize,
+                                @Value("${registration.archive.batch-delay:200ms}") Duration batchDelay) {
+        this.registrationRepository = registrationRepository;
+        this.archivedRegistrationRepository = archivedRegistrationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.batchDelay = batchDelay;
+        this.archived = Counter.builder("registration.archived").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${registration.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        archive();
+    }
+
+    // Trả về số đăng ký đã chuyển; bỏ qua nếu đang có lần chạy khác
+    public long archive() {
+        if (!running.tryLock()) {
+            return 0;
+        }
+        try {
+            return archive(LocalDateTime.now().minus(retention));
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private long archive(LocalDateTime endedBefore) {
+        Pageable limit = PageRequest.ofSize(batchSize);
+        long total = 0;
+        RegistrationId after = new RegistrationId(0L, 0L);
+        while (true) {
+            List<RegistrationId> ids = registrationRepository.findArchivableIds(endedBefore, after.getCourseId(), after.getStudentId(), limit);
+            if (ids.isEmpty()) {
+                break;
+            }
+            RegistrationId first = ids.get(0);
+            RegistrationId last = ids.get(ids.size() - 1);
+            Integer moved = transactionTemplate.execute(status -> {
+                archivedRegistrationRepository.copyFromRegistrations(first.getCourseId(), first.getStudentId(),
+                        last.getCourseId(), last.getStudentId(), endedBefore, LocalDateTime.now());
+                return registrationRepository.deleteArchived(first.getCourseId(), first.getStudentId(),
+                        last.getCourseId(), last.getStudentId());
+            });
+            total += moved;
+            archived.increment(moved);
+            after = last;
+            if (ids.size() < batchSize || !pause()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Đã lưu trữ {} đăng ký của các khóa kết thúc trước {}", total, endedBefore);
+        }
+        return total;
+    }
+
+    // Nhường DB cho luồng đăng ký giữa các lô; false nếu thread bị dừng
+    private boolean pause() {
+        try {
+            Thread.sleep(batchDelay.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.Course;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Gộp các request đăng ký trùng (email, courseId) trong cùng instance:
+// - request đến khi lần đầu còn đang chạy sẽ chờ (tối đa wait-timeout) và dùng chung kết quả (kể cả lỗi)
+// - kết quả thành công được giữ trong ttl để request gửi lại trả lời ngay không cần tới DB;
+//   request có Idempotency-Key khác với lần trước được coi là lần thử mới
+// - hủy đăng ký qua đây sẽ xóa kết quả đã giữ
+@Service
+public class RegistrationDeduplicator {
+
+    private record Flight(String idempotencyKey, CompletableFuture<List<Course>> result) {
+    }
+
+    private final RegistrationService registrationService;
+    private final Cache<String, Flight> flights;
+    private final Counter inFlightHits;
+    private final Counter recentHits;
+    private final long waitTimeoutNanos;
+
+    @Autowired
+    public RegistrationDeduplicator(RegistrationService registrationService, MeterRegistry meterRegistry,
+                                    @Value("${registration.dedup.max-size:10000}") long maxSize,
+                                    @Value("${registration.dedup.ttl:30s}") Duration ttl,
+                                    @Value("${registration.dedup.wait-timeout:30s}") Duration waitTimeout) {
+        this.registrationService = registrationService;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.flights = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.inFlightHits = deduplicatedCounter(meterRegistry, "in_flight");
+        this.recentHits = deduplicatedCounter(meterRegistry, "recent");
+    }
+
+    public List<Course> registerCourse(String email, Long courseId, String idempotencyKey) {
+        String key = key(email, courseId);
+        Flight mine = new Flight(idempotencyKey, new CompletableFuture<>());
+        Flight flight = flights.asMap().compute(key, (k, existing) -> existing != null
+                && (!existing.result().isDone() || Objects.equals(existing.idempotencyKey(), idempotencyKey)) ? existing : mine);
+
+        if (flight != mine) {
+            (flight.result().isDone() ? recentHits : inFlightHits).increment();
+            return await(flight.result());
+        }
+
+        try {
+            List<Course> upcomingCourses = registrationService.registerCourse(email, courseId);
+            mine.result().complete(upcomingCourses);
+            return upcomingCourses;
+        } catch (RuntimeException | Error e) {
+            // Lỗi chỉ chia cho các request đang chờ, không giữ lại: lần gửi sau sẽ thử lại thật
+            mine.result().completeExceptionally(e);
+            flights.asMap().remove(key, mine);
+            throw e;
+        }
+    }
+
+    public boolean unregisterCourse(Long courseId, String email) {
+        boolean unregistered = registrationService.unregisterCourse(courseId, email);
+        flights.invalidate(key(email, courseId));
+        return unregistered;
+    }
+
+    private List<Course> await(CompletableFuture<List<Course>> result) {
+        try {
+            return result.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalArgumentException("Yêu cầu đăng ký trước đó vẫn đang xử lý, vui lòng thử lại sau");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Yêu cầu đăng ký bị gián đoạn, vui lòng thử lại sau");
+        }
+    }
+
+    private static String key(String email, Long courseId) {
+        return email.toLowerCase(Locale.ROOT) + '|' + courseId;
+    }
+
+    private static Counter deduplicatedCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("registration.deduplicated").tag("source", source).register(meterRegistry);
+    }
+}
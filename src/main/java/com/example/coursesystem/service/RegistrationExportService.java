@@ -0,0 +1,117 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.RegistrationRecord;
+import com.example.coursesystem.repository.ArchivedRegistrationRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Xuất toàn bộ đăng ký cho báo cáo tài chính: ghi từng dòng ra output ngay khi đọc,
+// entity được detach sau khi ghi nên heap không tăng theo số dòng. Gồm cả đăng ký đã chuyển sang bảng lưu trữ
+@Service
+public class RegistrationExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Định dạng không hỗ trợ: " + value);
+            }
+        }
+    }
+
+    private final RegistrationRepository registrationRepository;
+    private final ArchivedRegistrationRepository archivedRegistrationRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public RegistrationExportService(RegistrationRepository registrationRepository, ArchivedRegistrationRepository archivedRegistrationRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.registrationRepository = registrationRepository;
+        this.archivedRegistrationRepository = archivedRegistrationRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    // from/to tính theo ngày đăng ký, bao gồm cả hai đầu; trả về số dòng đã ghi
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, Long courseId, Format format, OutputStream output) throws IOException {
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        // Hai cursor đọc lần lượt: bảng lưu trữ chỉ được mở khi đã đọc hết bảng chính
+        try (Stream<RegistrationRecord> registrations = Stream.concat(
+                registrationRepository.streamForExport(fromTime, toTime, courseId),
+                Stream.of(0).flatMap(ignored -> archivedRegistrationRepository.streamForExport(fromTime, toTime, courseId)))) {
+            long rows = format == Format.CSV
+                    ? writeCsv(registrations.iterator(), writer)
+                    : writeNdjson(registrations.iterator(), writer);
+            writer.flush();
+            return rows;
+        }
+    }
+
+    private long writeCsv(Iterator<RegistrationRecord> registrations, Writer writer) throws IOException {
+        writer.write("student_id,course_id,price,registered_date\n");
+        long rows = 0;
+        while (registrations.hasNext()) {
+            RegistrationRecord registration = registrations.next();
+            writer.write(registration.getStudentId() + "," + registration.getCourseId() + ","
+                    + registration.getPrice() + "," + registration.getRegisteredDate() + "\n");
+            entityManager.detach(registration);
+            rows++;
+        }
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<RegistrationRecord> registrations, Writer writer) throws IOException {
+        long rows = 0;
+        // Không close generator: output thuộc về caller
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        while (registrations.hasNext()) {
+            RegistrationRecord registration = registrations.next();
+            generator.writeStartObject();
+            generator.writeNumberField("studentId", registration.getStudentId());
+            generator.writeNumberField("courseId", registration.getCourseId());
+            generator.writeNumberField("price", registration.getPrice());
+            generator.writeStringField("registeredDate", String.valueOf(registration.getRegisteredDate()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            entityManager.detach(registration);
+            rows++;
+        }
+        generator.flush();
+        return rows;
+    }
+}
@@ -1,101 +1,180 @@
 package com.example.coursesystem.service;
 
+import com.example.coursesystem.cache.CourseCache;
+import com.example.coursesystem.cache.StudentIdCache;
+import com.example.coursesystem.cache.StudentScheduleCache;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.dto.RegistrationContext;
+import com.example.coursesystem.dto.UnregistrationContext;
+import com.example.coursesystem.metrics.RegistrationMetrics;
 import com.example.coursesystem.model.Course;
 import com.example.coursesystem.model.Registration;
-import com.example.coursesystem.model.Student;
 import com.example.coursesystem.repository.CourseRepository;
 import com.example.coursesystem.repository.RegistrationRepository;
-import com.example.coursesystem.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 @Service
 public class RegistrationService {
 
     private final RegistrationRepository registrationRepository;
     private final CourseRepository courseRepository;
-    private final StudentRepository studentRepository;
+    private final CourseCache courseCache;
+    private final StudentIdCache studentIdCache;
+    private final RegistrationMetrics registrationMetrics;
+    private final OngoingCourseCounter ongoingCourseCounter;
+    private final CourseStatsService courseStatsService;
+    private final StudentScheduleCache studentScheduleCache;
+    private final ReadYourWrites readYourWrites;
+    private final ChangeFeed changeFeed;
 
     @Autowired
-    public RegistrationService(RegistrationRepository registrationRepository, CourseRepository courseRepository, StudentRepository studentRepository) {
+    public RegistrationService(RegistrationRepository registrationRepository, CourseRepository courseRepository, CourseCache courseCache, StudentIdCache studentIdCache, RegistrationMetrics registrationMetrics, OngoingCourseCounter ongoingCourseCounter, CourseStatsService courseStatsService, StudentScheduleCache studentScheduleCache, ReadYourWrites readYourWrites, ChangeFeed changeFeed) {
         this.registrationRepository = registrationRepository;
         this.courseRepository = courseRepository;
-        this.studentRepository = studentRepository;
+        this.courseCache = courseCache;
+        this.studentIdCache = studentIdCache;
+        this.registrationMetrics = registrationMetrics;
+        this.ongoingCourseCounter = ongoingCourseCounter;
+        this.courseStatsService = courseStatsService;
+        this.studentScheduleCache = studentScheduleCache;
+        this.readYourWrites = readYourWrites;
+        this.changeFeed = changeFeed;
     }
 
     @Transactional
     public List<Course> registerCourse(String email, Long courseId) {
-        Student student = studentRepository.findByEmail(email)
+        RegistrationMetrics.Recording recording = registrationMetrics.start("register");
+        try {
+            List<Course> upcomingCourses = registerCourse(email, courseId, recording);
+            readYourWrites.recordWrite(email);
+            recording.success();
+            return upcomingCourses;
+        } catch (IllegalArgumentException e) {
+            recording.failure(e);
+            throw e;
+        } catch (RuntimeException e) {
+            recording.error();
+            throw e;
+        }
+    }
+
+    @Transactional
+    public boolean unregisterCourse(Long courseId, String email) {
+        RegistrationMetrics.Recording recording = registrationMetrics.start("unregister");
+        try {
+            unregisterCourse(courseId, email, recording);
+            readYourWrites.recordWrite(email);
+            recording.success();
+            return true;
+        } catch (IllegalArgumentException e) {
+            recording.failure(e);
+            throw e;
+        } catch (RuntimeException e) {
+            recording.error();
+            throw e;
+        }
+    }
+
+    private List<Course> registerCourse(String email, Long courseId, RegistrationMetrics.Recording recording) {
+        LocalDateTime now = LocalDateTime.now();
+
+        RegistrationContext context = recording.stage("lookup", () -> registrationRepository
+                .findRegistrationContext(email, courseId))
                 .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy học viên"));
 
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy khóa học"));
+        Course course = context.getCourse();
+        if (course == null) {
+            throw new IllegalArgumentException("Không tìm thấy khóa học");
+        }
 
         if (course.hasStarted()) {
             throw new IllegalArgumentException("Không thể đăng ký khóa học đã bắt đầu");
         }
 
-        boolean alreadyRegistered = registrationRepository
-                .findByStudentIdAndCourseId(student.getId(), courseId)
-                .isPresent();
-
-        if (alreadyRegistered) {
-            throw new IllegalArgumentException("Đã đăng ký khóa học này rồi");
+        if (course.isFull()) {
+            throw new IllegalArgumentException("Khóa học đã hết chỗ");
         }
 
-        int ongoingCoursesCount = registrationRepository
-                .countOngoingCoursesByStudentId(student.getId(), LocalDateTime.now());
+        studentScheduleCache.reserve(context.getStudentId(), context.getScheduleVersion(), course);
+        studentScheduleCache.confirm(context.getStudentId(), context.getScheduleVersion(), course);
 
-        Long finalPrice = course.getPrice();
-        if (ongoingCoursesCount >= 2) {
-            finalPrice = finalPrice * 75 / 100; // Giảm 25%
+        Long finalPrice = discountedPrice(course.getPrice(), context.getOngoingCoursesCount());
+
+        try {
+            recording.stage("insert", () -> registrationRepository
+                    .insert(context.getStudentId(), course.getId(), finalPrice, now));
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Đã đăng ký khóa học này rồi");
         }
+        ongoingCourseCounter.registrationAdded(context.getStudentId(), course);
+        courseStatsService.registrationAdded(context.getStudentId(), course.getId(), finalPrice);
 
-        Registration registration = Registration.builder()
-                .studentId(student.getId())
-                .courseId(course.getId())
-                .price(finalPrice)
-                .registeredDate(LocalDateTime.now())
-                .build();
+        List<Course> upcomingCourses = recording.stage("upcoming", () -> getUpcomingRegisteredCourses(context.getStudentId()));
 
-        registrationRepository.save(registration);
+        // Giữ chỗ gần cuối để khóa dòng khóa học được giữ ngắn nhất cho tới khi commit
+        if (course.getCapacity() != null
+                && recording.stage("seat", () -> courseRepository.claimSeat(course.getId())) == 0) {
+            throw new IllegalArgumentException("Khóa học đã hết chỗ");
+        }
 
-        return getUpcomingRegisteredCourses(student.getId());
+        // Cấp id sự kiện sau cùng để khoảng từ lúc cấp id tới commit ngắn nhất (ChangeFeed chờ các id còn thiếu)
+        changeFeed.registered(context.getStudentId(), course.getId());
+        return upcomingCourses;
     }
-    @Transactional
-    public boolean unregisterCourse(Long courseId, String email) {
-        Student student = studentRepository.findByEmail(email)
+
+    private void unregisterCourse(Long courseId, String email, RegistrationMetrics.Recording recording) {
+        Long studentId = recording.stage("student", () -> studentIdCache.findIdByEmail(email))
                 .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy học viên"));
 
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy khóa học"));
+        UnregistrationContext context = recording.stage("registration", () -> registrationRepository
+                .findUnregistrationContext(studentId, courseId))
+                .orElseThrow(() -> notUnregistrable(courseId));
+        Registration registration = context.getRegistration();
+        Course course = context.getCourse();
 
         if (course.hasStarted()) {
             throw new IllegalArgumentException("Không thể hủy đăng ký khóa học đã bắt đầu");
         }
 
-        Registration registration = registrationRepository
-                .findByStudentIdAndCourseId(student.getId(), courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy đăng ký khóa học"));
-
-        registrationRepository.delete(registration);
-        return true;
+        // Flush ngay để bước này đo cả câu DELETE thay vì để nó rơi vào lúc commit
+        recording.stage("delete", () -> {
+            registrationRepository.delete(registration);
+            registrationRepository.flush();
+            ongoingCourseCounter.registrationRemoved(studentId, course);
+            courseStatsService.registrationRemoved(studentId, courseId, registration.getPrice());
+            studentScheduleCache.registrationRemoved(studentId, course);
+            changeFeed.unregistered(studentId, courseId);
+            return course.getCapacity() != null ? courseRepository.releaseSeat(courseId) : 0;
+        });
     }
 
-    private List<Course> getUpcomingRegisteredCourses(Long studentId) {
-        List<Registration> upcomingRegistrations = registrationRepository
-                .findUpcomingRegistrationsByStudentId(studentId, LocalDateTime.now());
+    // Không có đăng ký: báo lỗi giống thứ tự kiểm tra cũ (khóa học không tồn tại, đã bắt đầu, chưa đăng ký)
+    private IllegalArgumentException notUnregistrable(Long courseId) {
+        Optional<Course> course = courseCache.findById(courseId);
+        if (course.isEmpty()) {
+            return new IllegalArgumentException("Không tìm thấy khóa học");
+        }
+        if (course.get().hasStarted()) {
+            return new IllegalArgumentException("Không thể hủy đăng ký khóa học đã bắt đầu");
+        }
+        return new IllegalArgumentException("Không tìm thấy đăng ký khóa học");
+    }
 
-        List<Course> courses = new ArrayList<>();
-        for (Registration reg : upcomingRegistrations) {
-            courseRepository.findById(reg.getCourseId()).ifPresent(courses::add);
+    static Long discountedPrice(Long price, long ongoingCoursesCount) {
+        if (ongoingCoursesCount >= 2) {
+            return price * 75 / 100; // Giảm 25%
         }
+        return price;
+    }
 
-        return courses;
+    private List<Course> getUpcomingRegisteredCourses(Long studentId) {
+        return courseRepository.findUpcomingCoursesByStudentId(studentId, LocalDateTime.now());
     }
 
 }
@@ -0,0 +1,141 @@
+package com.example.coursesystem;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Thời gian từ lúc khởi chạy JVM mới tới khi POST /api/register đầu tiên trả về 200, so sánh khởi tạo eager
+// với lazy-initialization của profile prod (các bean trên đường đăng ký vẫn eager):
+//   mvn test -Pbenchmark -Dtest=StartupTimeBenchmarkTest [-Dstartup.runs=5] [-Dstartup.jvm-args="-XX:TieredStopAtLevel=1"]
+// AOT và AppCDS chỉ áp dụng cho jar đóng gói bằng mvn -Pfast-startup package (xem application-prod.properties).
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final String JVM_ARGS = System.getProperty("startup.jvm-args", "");
+    private static final Duration TIMEOUT = Duration.ofMinutes(3);
+    private static final Pattern STARTED = Pattern.compile("Started CouresesystemApplication in ([0-9.]+) seconds");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @Test
+    void benchmarkTimeToFirstRegistration() throws Exception {
+        measure("eager", List.of());
+        measure("lazy (prod)", List.of("--spring.main.lazy-initialization=true", "--spring.mvc.servlet.load-on-startup=1"));
+    }
+
+    private void measure(String name, List<String> appArgs) throws Exception {
+        long[] firstRegistration = new long[RUNS];
+        double[] started = new double[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long[] result = startAndRegister(appArgs);
+            firstRegistration[run] = result[0];
+            started[run] = result[1] / 1000.0;
+        }
+        Arrays.sort(firstRegistration);
+        Arrays.sort(started);
+        System.out.printf("[%s] %d runs: first registration median=%d ms (min=%d, max=%d), \"Started in\" median=%.2f s%n",
+                name, RUNS, firstRegistration[RUNS / 2], firstRegistration[0], firstRegistration[RUNS - 1], started[RUNS / 2]);
+    }
+
+    // [ms tới đăng ký đầu tiên, ms Spring Boot tự báo khi khởi động xong]
+    private long[] startAndRegister(List<String> appArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!JVM_ARGS.isBlank()) {
+            command.addAll(Arrays.asList(JVM_ARGS.trim().split("\\s+")));
+        }
+        command.addAll(List.of(
+                "-cp", System.getProperty("java.class.path"),
+                "-Dspring.devtools.restart.enabled=false",
+                CouresesystemApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+                // Hibernate nạp dữ liệu ngay sau khi tạo schema; spring.sql.init không chạy khi bật lazy-initialization
+                "--spring.jpa.properties.hibernate.hbm2ddl.import_files=startup-data.sql"));
+        command.addAll(appArgs);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        AtomicReference<String> startedIn = new AtomicReference<>();
+        Thread reader = new Thread(() -> readOutput(process, startedIn), "startup-output");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/register/1/student1@gmail.com"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            long deadline = start + TIMEOUT.toNanos();
+            while (true) {
+                assertTrue(process.isAlive(), "Ứng dụng dừng trước khi đăng ký được");
+                assertTrue(System.nanoTime() < deadline, "Quá " + TIMEOUT + " mà chưa đăng ký được");
+                try {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        break;
+                    }
+                    throw new AssertionError("Đăng ký thất bại: " + response.statusCode() + " " + response.body());
+                } catch (IOException e) {
+                    // Server chưa mở cổng
+                    Thread.sleep(10);
+                }
+            }
+            long firstRegistration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // Dòng "Started" có thể được ghi sau khi server đã nhận request
+            for (int i = 0; i < 500 && startedIn.get() == null; i++) {
+                Thread.sleep(10);
+            }
+            long startedMillis = startedIn.get() != null ? (long) (Double.parseDouble(startedIn.get()) * 1000) : -1;
+            return new long[]{firstRegistration, startedMillis};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Đọc hết output để process không bị chặn vì đầy pipe, giữ lại dòng "Started ... in X seconds"
+    private static void readOutput(Process process, AtomicReference<String> startedIn) {
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                Matcher matcher = STARTED.matcher(line);
+                if (matcher.find()) {
+                    startedIn.set(matcher.group(1));
+                }
+            }
+        } catch (IOException ignored) {
+            // process đã bị dừng
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.repository.CourseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CourseCacheInvalidationTest {
+
+    @Autowired
+    private CourseCache courseCache;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Test
+    void testSaveAndDeleteEvictCourse() {
+        Course course = courseRepository.save(Course.builder()
+                .name("Học làm giàu trong 1 ngày")
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(5))
+                .price(100000L)
+                .build());
+        courseCache.findById(course.getId());
+
+        LocalDateTime movedStart = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        courseRepository.save(Course.builder()
+                .id(course.getId())
+                .name(course.getName())
+                .startTime(movedStart)
+                .endTime(course.getEndTime())
+                .price(course.getPrice())
+                .build());
+
+        Course cached = courseCache.findById(course.getId()).orElseThrow();
+        assertEquals(movedStart, cached.getStartTime());
+        assertTrue(cached.hasStarted());
+
+        courseRepository.deleteById(course.getId());
+        assertTrue(courseCache.findById(course.getId()).isEmpty());
+    }
+}
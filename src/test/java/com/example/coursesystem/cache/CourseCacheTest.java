@@ -0,0 +1,132 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.repository.CourseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CourseCacheTest {
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    private MeterRegistry meterRegistry;
+    private CourseCache courseCache;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        courseCache = new CourseCache(courseRepository, meterRegistry, 100, Duration.ofMinutes(5));
+
+        course = Course.builder()
+                .id(1L)
+                .name("Học làm giàu trong 1 ngày")
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(5))
+                .price(100000L)
+                .build();
+    }
+
+    @Test
+    void testFindById_CachesAndCountsHits() {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+
+        assertEquals(course, courseCache.findById(1L).orElseThrow());
+        assertEquals(course, courseCache.findById(1L).orElseThrow());
+
+        verify(courseRepository, times(1)).findById(1L);
+        assertEquals(1.0, gets("courses", "hit"));
+        assertEquals(1.0, gets("courses", "miss"));
+    }
+
+    @Test
+    void testFindById_MissingCourseIsNotCached() {
+        when(courseRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(courseCache.findById(2L).isEmpty());
+        assertTrue(courseCache.findById(2L).isEmpty());
+
+        verify(courseRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void testEvict_ReloadsCourse() {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        courseCache.findById(1L);
+
+        courseCache.evict(1L);
+        courseCache.findById(1L);
+
+        verify(courseRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testFindById_EvictDuringLoadIsNotCached() {
+        when(courseRepository.findById(1L)).thenAnswer(invocation -> {
+            // Một transaction khác sửa khóa học và commit trong lúc đang đọc
+            courseCache.evict(1L);
+            return Optional.of(course);
+        });
+
+        courseCache.findById(1L);
+        courseCache.findById(1L);
+
+        verify(courseRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testFindById_CachesCopyOfEntity() {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        courseCache.findById(1L);
+
+        course.setName("Đã đổi tên nhưng chưa lưu");
+
+        assertEquals("Học làm giàu trong 1 ngày", courseCache.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    void testFindByStartTimeAfter_DropsCoursesThatHaveStarted() throws InterruptedException {
+        Course startingSoon = Course.builder()
+                .id(2L)
+                .startTime(LocalDateTime.now().plusNanos(200_000_000))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .build();
+        when(courseRepository.findByStartTimeAfter(any())).thenReturn(List.of(course, startingSoon));
+
+        assertEquals(2, courseCache.findByStartTimeAfter(LocalDateTime.now()).size());
+        Thread.sleep(300);
+        assertEquals(List.of(course), courseCache.findByStartTimeAfter(LocalDateTime.now()));
+
+        verify(courseRepository, times(1)).findByStartTimeAfter(any());
+    }
+
+    @Test
+    void testFindByStartTimeAfter_EarlierThanSnapshotGoesToDatabase() {
+        when(courseRepository.findByStartTimeAfter(any())).thenReturn(List.of(course));
+        courseCache.findByStartTimeAfter(LocalDateTime.now());
+
+        LocalDateTime lastWeek = LocalDateTime.now().minusDays(7);
+        courseCache.findByStartTimeAfter(lastWeek);
+
+        verify(courseRepository, times(1)).findByStartTimeAfter(lastWeek);
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+}
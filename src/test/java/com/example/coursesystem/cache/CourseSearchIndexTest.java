@@ -0,0 +1,104 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.dto.CourseSummary;
+import com.example.coursesystem.model.Course;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(CourseSearchIndex.class)
+class CourseSearchIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Course rich;
+    private Course culture;
+    private Course cooking;
+
+    @BeforeEach
+    void setUp() {
+        rich = entityManager.persist(course("Học làm giàu trong 1 ngày", 1, 100000L));
+        culture = entityManager.persist(course("Đào tạo văn hóa trước khi sang Cam", 5, 200000L));
+        cooking = entityManager.persist(course("Nấu ăn gia đình", 10, 300000L));
+        entityManager.flush();
+        courseSearchIndex.rebuild();
+    }
+
+    @Test
+    void testSearch_IgnoresCaseAndAccents() {
+        assertEquals(List.of(rich.getId()), ids(search("HOC lam")));
+        assertEquals(List.of(rich.getId()), ids(search("giàu")));
+        assertEquals(List.of(culture.getId()), ids(search("dao tao")));
+        assertEquals(List.of(culture.getId()), ids(search("ĐÀO")));
+    }
+
+    @Test
+    void testSearch_MatchesTokenPrefixesAndRequiresEveryTerm() {
+        // "gi" là tiền tố của "giàu" và "gia"
+        assertEquals(List.of(rich.getId(), cooking.getId()), ids(search("gi")));
+        assertEquals(List.of(cooking.getId()), ids(search("gi nau")));
+        assertTrue(search("giàu nấu").isEmpty());
+        assertTrue(search("xyz").isEmpty());
+    }
+
+    @Test
+    void testSearch_FiltersByStartTimeAndPrice() {
+        assertEquals(List.of(culture.getId(), cooking.getId()),
+                ids(courseSearchIndex.search(null, BASE.plusDays(2), null, null, null, 10)));
+        assertEquals(List.of(culture.getId()),
+                ids(courseSearchIndex.search(null, BASE, BASE.plusDays(10), 150000L, null, 10)));
+        assertEquals(List.of(rich.getId(), culture.getId()),
+                ids(courseSearchIndex.search("", null, null, null, 200000L, 10)));
+        assertEquals(List.of(rich.getId()), ids(courseSearchIndex.search(null, null, null, null, null, 1)));
+    }
+
+    @Test
+    void testPutAndRemove_UpdateIndexIncrementally() {
+        cooking.setName("Lập trình Java");
+        courseSearchIndex.put(cooking);
+
+        assertTrue(search("nau").isEmpty());
+        assertEquals(List.of(cooking.getId()), ids(search("lap trinh")));
+
+        courseSearchIndex.remove(cooking.getId());
+        assertTrue(search("java").isEmpty());
+        assertEquals(2, courseSearchIndex.search(null, null, null, null, null, 10).size());
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("dao", "tao", "van", "hoa"), CourseSearchIndex.tokenize("Đào tạo - văn hóa, ĐÀO"));
+    }
+
+    private List<CourseSummary> search(String query) {
+        return courseSearchIndex.search(query, null, null, null, null, 10);
+    }
+
+    private static List<Long> ids(List<CourseSummary> courses) {
+        return courses.stream().map(CourseSummary::getId).toList();
+    }
+
+    private static Course course(String name, int startsInDays, Long price) {
+        return Course.builder()
+                .name(name)
+                .startTime(BASE.plusDays(startsInDays))
+                .endTime(BASE.plusDays(startsInDays + 4))
+                .price(price)
+                .build();
+    }
+}
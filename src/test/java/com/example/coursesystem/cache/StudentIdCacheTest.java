@@ -0,0 +1,89 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class StudentIdCacheTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    private StudentIdCache studentIdCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        studentIdCache = new StudentIdCache(studentRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(30));
+    }
+
+    @Test
+    void testFindIdByEmail_Cached() {
+        when(studentRepository.findIdByEmail("leejimin@gmail.com")).thenReturn(Optional.of(1L));
+
+        assertEquals(1L, studentIdCache.findIdByEmail("leejimin@gmail.com").orElseThrow());
+        assertEquals(1L, studentIdCache.findIdByEmail("leejimin@gmail.com").orElseThrow());
+
+        verify(studentRepository, times(1)).findIdByEmail("leejimin@gmail.com");
+    }
+
+    @Test
+    void testFindIdByEmail_UnknownEmailIsNotCached() {
+        when(studentRepository.findIdByEmail("new@gmail.com")).thenReturn(Optional.empty(), Optional.of(2L));
+
+        assertTrue(studentIdCache.findIdByEmail("new@gmail.com").isEmpty());
+        assertEquals(2L, studentIdCache.findIdByEmail("new@gmail.com").orElseThrow());
+    }
+
+    @Test
+    void testEvict_RemovesOldEmailOfStudent() {
+        when(studentRepository.findIdByEmail("leejimin@gmail.com")).thenReturn(Optional.of(1L), Optional.empty());
+        studentIdCache.findIdByEmail("leejimin@gmail.com");
+
+        // Email đã đổi, entity chỉ còn id
+        studentIdCache.evict(1L);
+
+        assertTrue(studentIdCache.findIdByEmail("leejimin@gmail.com").isEmpty());
+    }
+
+    @Test
+    void testEvict_RemovesEveryEmailSpellingOfStudent() {
+        when(studentRepository.findIdByEmail("leejimin@gmail.com")).thenReturn(Optional.of(1L), Optional.empty());
+        when(studentRepository.findIdByEmail("LeeJimin@gmail.com")).thenReturn(Optional.of(1L), Optional.empty());
+        when(studentRepository.findIdByEmail("other@gmail.com")).thenReturn(Optional.of(2L));
+        studentIdCache.findIdByEmail("leejimin@gmail.com");
+        studentIdCache.findIdByEmail("LeeJimin@gmail.com");
+        studentIdCache.findIdByEmail("other@gmail.com");
+
+        studentIdCache.evict(1L);
+
+        assertTrue(studentIdCache.findIdByEmail("leejimin@gmail.com").isEmpty());
+        assertTrue(studentIdCache.findIdByEmail("LeeJimin@gmail.com").isEmpty());
+        assertEquals(2L, studentIdCache.findIdByEmail("other@gmail.com").orElseThrow());
+        verify(studentRepository, times(1)).findIdByEmail("other@gmail.com");
+    }
+
+    @Test
+    void testFindIdByEmail_EvictDuringLoadIsNotCached() {
+        when(studentRepository.findIdByEmail("leejimin@gmail.com")).thenAnswer(invocation -> {
+            // Một transaction khác đổi email của học viên và commit trong lúc đang đọc
+            studentIdCache.evict(1L);
+            return Optional.of(1L);
+        });
+
+        studentIdCache.findIdByEmail("leejimin@gmail.com");
+        studentIdCache.findIdByEmail("leejimin@gmail.com");
+
+        verify(studentRepository, times(2)).findIdByEmail("leejimin@gmail.com");
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// mvn test -Pbenchmark -Dtest=StudentLookupBenchmarkTest [-Dbenchmark.students=1000000]
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:student-benchmark;MODE=MSSQLServer;DB_CLOSE_DELAY=-1")
+class StudentLookupBenchmarkTest {
+
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 1_000_000);
+    private static final int WARMUP = 20_000;
+    private static final int LOOKUPS = 100_000;
+    private static final int HOT_STUDENTS = 50_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private StudentIdCache studentIdCache;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> batch = new ArrayList<>();
+        for (long id = 1; id <= STUDENTS; id++) {
+            batch.add(new Object[]{id, email(id), "Lee", "Jimin " + id});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    @Test
+    void benchmarkEmailLookup() {
+        run("findByEmail (full entity)", STUDENTS, id -> assertTrue(studentRepository.findByEmail(email(id)).isPresent()));
+        run("findIdByEmail (id only)", STUDENTS, id -> assertTrue(studentRepository.findIdByEmail(email(id)).isPresent()));
+        run("StudentIdCache, uniform", STUDENTS, id -> assertTrue(studentIdCache.findIdByEmail(email(id)).isPresent()));
+        // Trong đợt đăng ký chỉ một phần nhỏ học viên hoạt động
+        run("StudentIdCache, " + HOT_STUDENTS + " hot", HOT_STUDENTS, id -> assertTrue(studentIdCache.findIdByEmail(email(id)).isPresent()));
+    }
+
+    private void run(String name, int range, LongConsumer lookup) {
+        for (int i = 0; i < WARMUP; i++) {
+            lookup.accept(randomId(range));
+        }
+        long[] latencies = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long id = randomId(range);
+            long start = System.nanoTime();
+            lookup.accept(id);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("[%s] %d students: p50=%.1f us, p99=%.1f us%n", name, STUDENTS,
+                latencies[LOOKUPS / 2] / 1_000.0, latencies[LOOKUPS * 99 / 100] / 1_000.0);
+    }
+
+    private long randomId(int range) {
+        return ThreadLocalRandom.current().nextLong(1, range + 1);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO student (id, email, first_name, last_name) VALUES (?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private static String email(long id) {
+        return "student" + id + "@gmail.com";
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.RegistrationRepository;
+import com.example.coursesystem.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Hai StudentScheduleCache dùng chung một database, như hai instance của ứng dụng
+@DataJpaTest
+class StudentScheduleCacheTest {
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private StudentScheduleCache thisInstance;
+    private StudentScheduleCache otherInstance;
+    private Student student;
+    private Course registeredElsewhere;
+    private Course overlapping;
+    private Course later;
+
+    @BeforeEach
+    void setUp() {
+        thisInstance = newCache();
+        otherInstance = newCache();
+        student = entityManager.persist(Student.builder()
+                .email("leejimin@gmail.com")
+                .firstName("Lee")
+                .lastName("Jimin")
+                .build());
+        registeredElsewhere = entityManager.persist(course("Khóa học A", 5, 9));
+        overlapping = entityManager.persist(course("Khóa học B", 6, 8));
+        later = entityManager.persist(course("Khóa học C", 20, 24));
+        entityManager.flush();
+
+        // Lịch (đang trống) đã nằm trong cache của instance này
+        thisInstance.preload(Map.of(student.getId(), 0L));
+    }
+
+    @Test
+    void testReserve_ReloadsScheduleChangedOnAnotherInstance() {
+        registerOnOtherInstance(registeredElsewhere);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            thisInstance.reserve(student.getId(), scheduleVersion(), overlapping);
+        });
+        assertEquals("Trùng lịch với khóa học đã đăng ký", exception.getMessage());
+    }
+
+    @Test
+    void testConfirm_RechecksWhenAnotherInstanceRegisteredAfterVersionRead() {
+        thisInstance.reserve(student.getId(), 0L, overlapping);
+
+        registerOnOtherInstance(registeredElsewhere);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            thisInstance.confirm(student.getId(), 0L, overlapping);
+        });
+        assertEquals("Trùng lịch với khóa học đã đăng ký", exception.getMessage());
+        assertEquals(1L, scheduleVersion());
+    }
+
+    @Test
+    void testConfirm_AdvancesVersionWhenNoConflictAfterRecheck() {
+        thisInstance.reserve(student.getId(), 0L, later);
+
+        registerOnOtherInstance(registeredElsewhere);
+
+        thisInstance.confirm(student.getId(), 0L, later);
+        assertEquals(2L, scheduleVersion());
+    }
+
+    private void registerOnOtherInstance(Course course) {
+        long version = scheduleVersion();
+        otherInstance.reserve(student.getId(), version, course);
+        otherInstance.confirm(student.getId(), version, course);
+        entityManager.persist(Registration.builder()
+                .studentId(student.getId())
+                .courseId(course.getId())
+                .price(course.getPrice())
+                .registeredDate(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+    }
+
+    private long scheduleVersion() {
+        return studentRepository.findScheduleVersion(student.getId()).orElseThrow();
+    }
+
+    private StudentScheduleCache newCache() {
+        return new StudentScheduleCache(registrationRepository, studentRepository, jdbcTemplate,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
+
+    private Course course(String name, int startDay, int endDay) {
+        return Course.builder()
+                .name(name)
+                .startTime(LocalDateTime.now().plusDays(startDay))
+                .endTime(LocalDateTime.now().plusDays(endDay))
+                .price(100000L)
+                .build();
+    }
+}
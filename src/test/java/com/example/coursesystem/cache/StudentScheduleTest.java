@@ -0,0 +1,61 @@
+package com.example.coursesystem.cache;
+
+import com.example.coursesystem.dto.ScheduleSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentScheduleTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    void testOverlapping_FindsOnlyIntersectingSlot() {
+        StudentSchedule schedule = StudentSchedule.of(List.of(slot(1L, 0, 5), slot(2L, 10, 15), slot(3L, 20, 25)));
+
+        assertEquals(List.of(2L), schedule.overlapping(day(12), day(13)).courseIds());
+        assertEquals(List.of(2L), schedule.overlapping(day(6), day(11)).courseIds());
+        assertEquals(List.of(3L), schedule.overlapping(day(14), day(30)).courseIds());
+        assertNull(schedule.overlapping(day(6), day(9)));
+        // Khóa kết thúc đúng lúc khóa kia bắt đầu thì không trùng
+        assertNull(schedule.overlapping(day(5), day(10)));
+        assertNull(schedule.overlapping(day(25), day(30)));
+    }
+
+    @Test
+    void testOf_MergesLegacyOverlaps() {
+        StudentSchedule schedule = StudentSchedule.of(List.of(slot(1L, 0, 5), slot(2L, 3, 8), slot(3L, 20, 25)));
+
+        assertEquals(2, schedule.size());
+        assertEquals(List.of(1L, 2L), schedule.overlapping(day(6), day(7)).courseIds());
+        // Không tách được khoảng đã gộp
+        assertFalse(schedule.remove(2L, day(3)));
+        assertTrue(schedule.remove(3L, day(20)));
+        assertNull(schedule.overlapping(day(21), day(22)));
+    }
+
+    @Test
+    void testAddAndRemove() {
+        StudentSchedule schedule = StudentSchedule.of(List.of());
+        assertNull(schedule.overlapping(day(0), day(5)));
+
+        schedule.add(1L, day(0), day(5));
+        assertNotNull(schedule.overlapping(day(4), day(6)));
+
+        assertTrue(schedule.remove(1L, day(0)));
+        assertNull(schedule.overlapping(day(4), day(6)));
+        // Khóa không có trong lịch (ví dụ đã kết thúc nên không được nạp)
+        assertTrue(schedule.remove(9L, day(40)));
+    }
+
+    private static ScheduleSlot slot(Long courseId, int startDay, int endDay) {
+        return new ScheduleSlot(1L, courseId, day(startDay), day(endDay));
+    }
+
+    private static LocalDateTime day(int day) {
+        return BASE.plusDays(day);
+    }
+}
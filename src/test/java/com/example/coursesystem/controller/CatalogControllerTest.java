@@ -0,0 +1,89 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.cache.CatalogPageCache;
+import com.example.coursesystem.cache.CatalogVersion;
+import com.example.coursesystem.dto.CourseSummary;
+import com.example.coursesystem.dto.KeysetPage;
+import com.example.coursesystem.service.CatalogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogControllerTest {
+
+    @Mock
+    private CatalogService catalogService;
+
+    private CatalogVersion catalogVersion;
+    private CatalogController catalogController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        catalogVersion = new CatalogVersion();
+        CatalogPageCache pageCache = new CatalogPageCache(catalogVersion, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        catalogController = new CatalogController(catalogService, pageCache, new ObjectMapper().registerModule(new JavaTimeModule()));
+        when(catalogService.getUpcomingCourses(null, null)).thenReturn(page("Học làm giàu trong 1 ngày"));
+    }
+
+    @Test
+    void testGetUpcomingCourses_MatchingETagReturns304WithoutLoading() {
+        ResponseEntity<?> first = catalogController.getUpcomingCourses(null, null, null);
+        String etag = first.getHeaders().getETag();
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+
+        ResponseEntity<?> second = catalogController.getUpcomingCourses(null, null, etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertEquals(etag, second.getHeaders().getETag());
+        assertNull(second.getBody());
+        verify(catalogService, times(1)).getUpcomingCourses(null, null);
+    }
+
+    @Test
+    void testGetUpcomingCourses_VersionBumpReloadsAndChangesETag() {
+        String etag = catalogController.getUpcomingCourses(null, null, null).getHeaders().getETag();
+
+        // Phiên bản đổi nhưng nội dung như cũ: vẫn 304
+        catalogVersion.bump();
+        assertEquals(HttpStatus.NOT_MODIFIED, catalogController.getUpcomingCourses(null, null, etag).getStatusCode());
+
+        when(catalogService.getUpcomingCourses(null, null)).thenReturn(page("Đào tạo văn hóa trước khi sang Cam"));
+        catalogVersion.bump();
+        ResponseEntity<?> changed = catalogController.getUpcomingCourses(null, null, etag);
+
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertTrue(new String((byte[]) changed.getBody(), StandardCharsets.UTF_8).contains("Đào tạo văn hóa"));
+        verify(catalogService, times(3)).getUpcomingCourses(null, null);
+    }
+
+    @Test
+    void testGetUpcomingCourses_InvalidCursorIsNotCached() {
+        when(catalogService.getUpcomingCourses("x", null)).thenThrow(new IllegalArgumentException("Cursor không hợp lệ"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, catalogController.getUpcomingCourses("x", null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, catalogController.getUpcomingCourses("x", null, null).getStatusCode());
+        verify(catalogService, times(2)).getUpcomingCourses("x", null);
+    }
+
+    private KeysetPage<CourseSummary> page(String name) {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 8, 0);
+        return new KeysetPage<>(List.of(new CourseSummary(1L, name, start, start.plusDays(5), 100000L)), null);
+    }
+}
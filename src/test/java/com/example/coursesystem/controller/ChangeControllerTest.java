@@ -0,0 +1,81 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.dto.ChangeBatch;
+import com.example.coursesystem.service.ChangeFeed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class ChangeControllerTest {
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private ChangeController changeController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        changeController = new ChangeController(changeFeed, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testGetChanges_WaitsUntilFeedHasEvents() {
+        Runnable cancel = () -> {
+        };
+        @SuppressWarnings("unchecked")
+        Consumer<ChangeBatch>[] listener = new Consumer[1];
+        when(changeFeed.whenAvailable(eq(5L), any())).thenAnswer(invocation -> {
+            listener[0] = invocation.getArgument(1);
+            return cancel;
+        });
+
+        DeferredResult<ResponseEntity<?>> result = changeController.getChanges(5);
+        assertFalse(result.hasResult());
+
+        ChangeBatch batch = ChangeBatch.of(List.of(), 7);
+        listener[0].accept(batch);
+        ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(batch, response.getBody());
+    }
+
+    @Test
+    void testGetChanges_FarBehindClientGetsGone() {
+        when(changeFeed.whenAvailable(eq(1L), any())).thenAnswer(invocation -> {
+            Consumer<ChangeBatch> listener = invocation.getArgument(1);
+            listener.accept(ChangeBatch.resync(9000));
+            return (Runnable) () -> {
+            };
+        });
+
+        ResponseEntity<?> response = (ResponseEntity<?>) changeController.getChanges(1).getResult();
+
+        assertEquals(HttpStatus.GONE, response.getStatusCode());
+        assertTrue(((ChangeBatch) response.getBody()).isResyncRequired());
+        assertEquals(9000, ((ChangeBatch) response.getBody()).getNext());
+    }
+
+    @Test
+    void testGetChanges_TooManyWaitingClients() {
+        when(changeFeed.whenAvailable(eq(1L), any())).thenReturn(null);
+
+        ResponseEntity<?> response = (ResponseEntity<?>) changeController.getChanges(1).getResult();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+    }
+}
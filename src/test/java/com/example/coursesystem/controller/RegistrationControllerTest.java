@@ -1,7 +1,10 @@
 package com.example.coursesystem.controller;
 
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.BulkRegistrationResult;
 import com.example.coursesystem.model.Course;
-import com.example.coursesystem.service.RegistrationService;
+import com.example.coursesystem.service.BulkRegistrationService;
+import com.example.coursesystem.service.RegistrationDeduplicator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -11,16 +14,23 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class RegistrationControllerTest {
 
     @Mock
-    private RegistrationService registrationService;
+    private RegistrationDeduplicator registrationDeduplicator;
+
+    @Mock
+    private BulkRegistrationService bulkRegistrationService;
 
     @InjectMocks
     private RegistrationController registrationController;
@@ -55,13 +65,13 @@ class RegistrationControllerTest {
         String email = "leejimin@gmail.com";
         List<Course> courses = Arrays.asList(course1, course2);
 
-        when(registrationService.registerCourse(email, courseId)).thenReturn(courses);
+        when(registrationDeduplicator.registerCourse(email, courseId, null)).thenReturn(courses);
 
-        ResponseEntity<?> response = registrationController.registerCourse(courseId, email);
+        ResponseEntity<?> response = registrationController.registerCourse(courseId, email, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(courses, response.getBody());
-        verify(registrationService, times(1)).registerCourse(email, courseId);
+        verify(registrationDeduplicator, times(1)).registerCourse(email, courseId, null);
     }
 
     @Test
@@ -70,10 +80,10 @@ class RegistrationControllerTest {
         String email = "leejimin@gmail.com";
         String errorMessage = "Không thể đăng ký khóa học";
 
-        when(registrationService.registerCourse(email, courseId))
+        when(registrationDeduplicator.registerCourse(email, courseId, null))
                 .thenThrow(new IllegalArgumentException(errorMessage));
 
-        ResponseEntity<?> response = registrationController.registerCourse(courseId, email);
+        ResponseEntity<?> response = registrationController.registerCourse(courseId, email, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(errorMessage, response.getBody());
@@ -84,7 +94,7 @@ class RegistrationControllerTest {
         Long courseId = 1L;
         String email = "leejimin@gmail.com";
 
-        when(registrationService.unregisterCourse(courseId, email)).thenReturn(true);
+        when(registrationDeduplicator.unregisterCourse(courseId, email)).thenReturn(true);
 
         ResponseEntity<?> response = registrationController.unregisterCourse(courseId, email);
 
@@ -98,7 +108,7 @@ class RegistrationControllerTest {
         String email = "leejimin@gmail.com";
         String errorMessage = "Không thể hủy đăng ký";
 
-        when(registrationService.unregisterCourse(courseId, email))
+        when(registrationDeduplicator.unregisterCourse(courseId, email))
                 .thenThrow(new IllegalArgumentException(errorMessage));
 
         ResponseEntity<?> response = registrationController.unregisterCourse(courseId, email);
@@ -106,4 +116,51 @@ class RegistrationControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(errorMessage, response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRegisterCourses_SplitsIntoChunks() {
+        List<BulkRegistrationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < RegistrationController.BATCH_CHUNK_SIZE + 1; i++) {
+            requests.add(new BulkRegistrationRequest("student" + i + "@gmail.com", 1L));
+        }
+
+        when(bulkRegistrationService.registerCourses(anyList()))
+                .thenAnswer(invocation -> invocation.<List<BulkRegistrationRequest>>getArgument(0).stream()
+                        .map(request -> BulkRegistrationResult.success(request, 100000L))
+                        .toList())
+                .thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+
+        ResponseEntity<List<BulkRegistrationResult>> response = registrationController.registerCourses(requests);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(requests.size(), response.getBody().size());
+        assertEquals("Đã đăng ký khóa học này rồi", response.getBody().get(RegistrationController.BATCH_CHUNK_SIZE).getMessage());
+        // Phần thứ hai bị rollback nên được thử lại từng dòng
+        verify(bulkRegistrationService, times(3)).registerCourses(anyList());
+    }
+
+    @Test
+    void testRegisterCourses_RetriesRolledBackChunkRowByRow() {
+        BulkRegistrationRequest first = new BulkRegistrationRequest("leejimin@gmail.com", 1L);
+        BulkRegistrationRequest duplicate = new BulkRegistrationRequest("leejimin@gmail.com", 2L);
+        BulkRegistrationRequest third = new BulkRegistrationRequest("leejimin@gmail.com", 3L);
+        List<BulkRegistrationRequest> requests = List.of(first, duplicate, third);
+
+        when(bulkRegistrationService.registerCourses(requests))
+                .thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+        when(bulkRegistrationService.registerCourses(List.of(first)))
+                .thenReturn(List.of(BulkRegistrationResult.success(first, 100000L)));
+        when(bulkRegistrationService.registerCourses(List.of(duplicate)))
+                .thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+        when(bulkRegistrationService.registerCourses(List.of(third)))
+                .thenReturn(List.of(BulkRegistrationResult.success(third, 200000L)));
+
+        List<BulkRegistrationResult> results = registrationController.registerCourses(requests).getBody();
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Đã đăng ký khóa học này rồi", results.get(1).getMessage());
+        assertTrue(results.get(2).isSuccess());
+    }
+}
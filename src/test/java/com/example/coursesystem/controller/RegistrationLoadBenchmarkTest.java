@@ -0,0 +1,137 @@
+package com.example.coursesystem.controller;
+
+import com.example.coursesystem.service.CourseStatsService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// p99 của POST /api/register/{courseId}/{email} khi có benchmark.clients client đồng thời (mặc định 5000).
+// So sánh hai chế độ (virtual thread cần Java 21):
+//   mvn test -Pbenchmark -Dtest=RegistrationLoadBenchmarkTest
+//   mvn test -Pbenchmark -Dtest=RegistrationLoadBenchmarkTest -Dspring.threads.virtual.enabled=true
+// Admission control bị tắt để đo chính mô hình thread, không phải giới hạn 429/503.
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:registration-load;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "datasource.query-log.enabled=false",
+        "registration.admission.enabled=false",
+        "server.tomcat.max-connections=20000",
+        "server.tomcat.accept-count=10000",
+        "logging.level.root=WARN"
+})
+class RegistrationLoadBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 5_000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+    private static final int WARMUP_ROUNDS = 1;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CourseStatsService courseStatsService;
+
+    @Autowired
+    private Environment environment;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    @BeforeAll
+    void seed() {
+        // Mỗi vòng đăng ký vào một khóa riêng, các khóa cách nhau đủ xa để không trùng lịch
+        LocalDateTime start = LocalDateTime.now().plusDays(30);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= WARMUP_ROUNDS + ROUNDS; id++) {
+            LocalDateTime courseStart = start.plusDays(id * 10);
+            rows.add(new Object[]{id, "Khóa học " + id, Timestamp.valueOf(courseStart), Timestamp.valueOf(courseStart.plusDays(5)), 100000L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO course (id, name, start_time, end_time, price, seats_taken) VALUES (?, ?, ?, ?, ?, 0)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= CLIENTS; id++) {
+            rows.add(new Object[]{id, email(id), "Lee", "Jimin " + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO student (id, email, first_name, last_name) VALUES (?, ?, ?, ?)", rows);
+        // Khóa học insert thẳng bằng JDBC nên chưa có các dòng thống kê
+        courseStatsService.rebuild();
+    }
+
+    @Test
+    void benchmarkConcurrentRegistrations() {
+        String mode = Threading.VIRTUAL.isActive(environment) ? "virtual threads" : "platform threads";
+        for (int round = 1; round <= WARMUP_ROUNDS; round++) {
+            runRound(round);
+        }
+
+        long[] latencies = new long[CLIENTS * ROUNDS];
+        long elapsed = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long[] roundLatencies = runRound(WARMUP_ROUNDS + round + 1);
+            elapsed += System.nanoTime() - start;
+            System.arraycopy(roundLatencies, 0, latencies, round * CLIENTS, CLIENTS);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("[%s] %d concurrent clients x %d rounds: p50=%.1f ms, p99=%.1f ms, max=%.1f ms, %.0f req/s%n",
+                mode, CLIENTS, ROUNDS, latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6,
+                latencies[latencies.length - 1] / 1e6, latencies.length / (elapsed / 1e9));
+    }
+
+    // Tất cả client gửi cùng lúc và chờ hết mới sang vòng sau
+    private long[] runRound(long courseId) {
+        long[] latencies = new long[CLIENTS];
+        AtomicInteger succeeded = new AtomicInteger();
+        List<CompletableFuture<?>> requests = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            int client = i;
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/register/" + courseId + "/" + email(client + 1)))
+                    .timeout(Duration.ofMinutes(2))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            long start = System.nanoTime();
+            requests.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        latencies[client] = System.nanoTime() - start;
+                        if (response.statusCode() == 200) {
+                            succeeded.incrementAndGet();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+        assertEquals(CLIENTS, succeeded.get());
+        return latencies;
+    }
+
+    private static String email(long id) {
+        return "student" + id + "@gmail.com";
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.coursesystem.datasource;
+
+import com.example.coursesystem.metrics.QueryLoggingDataSourcePostProcessor;
+import com.example.coursesystem.metrics.SlowQueryLogger;
+import com.example.coursesystem.metrics.StatementCounter;
+import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+// @ConditionalOnThreading(VIRTUAL) cần Java 21 nên post-processor được khai báo bằng @Bean thay vì component scan.
+// Post-processor log câu lệnh được khai báo trước để thứ tự chỉ còn phụ thuộc vào Ordered.
+class ConnectionLimitPostProcessorTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withPropertyValues("datasource.query-log.enabled=true")
+            .withUserConfiguration(DataSourceConfig.class);
+
+    @Test
+    void testConnectionLimitAppliedBeforeQueryLogProxy() {
+        contextRunner.run(context -> {
+            ProxyDataSource proxy = assertInstanceOf(ProxyDataSource.class, context.getBean(DataSource.class));
+            ConnectionLimitingDataSource limited = assertInstanceOf(ConnectionLimitingDataSource.class, proxy.getDataSource());
+            assertEquals(4, limited.availablePermits());
+            assertInstanceOf(HikariDataSource.class, limited.getTargetDataSource());
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class DataSourceConfig {
+
+        @Bean
+        static QueryLoggingDataSourcePostProcessor queryLoggingDataSourcePostProcessor(ObjectProvider<StatementCounter> statementCounter,
+                                                                                      ObjectProvider<SlowQueryLogger> slowQueryLogger,
+                                                                                      Environment environment) {
+            return new QueryLoggingDataSourcePostProcessor(statementCounter, slowQueryLogger, environment);
+        }
+
+        @Bean
+        static ConnectionLimitPostProcessor connectionLimitPostProcessor() {
+            return new ConnectionLimitPostProcessor(Duration.ofSeconds(1));
+        }
+
+        @Bean
+        SlowQueryLogger slowQueryLogger() {
+            return new SlowQueryLogger(Duration.ofMillis(200), 0);
+        }
+
+        @Bean
+        HikariDataSource dataSource() {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:connection-limit");
+            dataSource.setMaximumPoolSize(4);
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.coursesystem.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void testGetConnection_TimesOutWhenAllPermitsAreTaken() throws SQLException {
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        verify(target, times(2)).getConnection();
+
+        first.close();
+        dataSource.getConnection();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void testClose_ReleasesPermitOnlyOnce() throws SQLException {
+        Connection limited = dataSource.getConnection();
+        limited.close();
+        limited.close();
+
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void testGetConnection_ReleasesPermitWhenTargetFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool closed"));
+
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void testConnection_DelegatesCalls() throws SQLException {
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.prepareStatement("SELECT 1")).thenThrow(new SQLException("bad sql"));
+
+        Connection limited = dataSource.getConnection();
+
+        assertFalse(limited.getAutoCommit());
+        SQLException e = assertThrows(SQLException.class, () -> limited.prepareStatement("SELECT 1"));
+        assertEquals("bad sql", e.getMessage());
+    }
+
+    @Test
+    void testForPool_SizedToEachPool() {
+        try (HikariDataSource primary = new HikariDataSource(); HikariDataSource replica = new HikariDataSource()) {
+            primary.setMaximumPoolSize(20);
+
+            assertEquals(20, ConnectionLimitingDataSource.forPool(primary, Duration.ofSeconds(1)).availablePermits());
+            assertEquals(10, ConnectionLimitingDataSource.forPool(replica, Duration.ofSeconds(1)).availablePermits());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.coursesystem.datasource;
+
+import com.example.coursesystem.dto.CourseSummary;
+import com.example.coursesystem.dto.RegistrationSummary;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.service.CatalogService;
+import com.example.coursesystem.service.RegistrationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Hai database H2 riêng đóng vai primary và replica; replica không được đồng bộ nên
+// dữ liệu đọc được cho biết câu lệnh đã đi tới database nào
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingTest.PRIMARY_URL,
+        "datasource.replica.url=" + ReadWriteRoutingTest.REPLICA_URL,
+        "datasource.replica.read-your-writes-window=1m"
+})
+class ReadWriteRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MSSQLServer;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MSSQLServer;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        // Schema do Hibernate tạo trên primary; chép sang replica
+        if (replica.queryForList("SELECT table_name FROM information_schema.tables WHERE table_name = 'COURSE'").isEmpty()) {
+            primary.queryForList("SCRIPT NODATA", String.class).stream()
+                    .filter(sql -> !sql.startsWith("CREATE USER"))
+                    .forEach(replica::execute);
+        }
+        for (JdbcTemplate database : List.of(primary, replica)) {
+            database.update("DELETE FROM registration");
+            database.update("DELETE FROM course");
+            database.update("DELETE FROM student");
+            insertCourse(database, 1L, "Học làm giàu trong 1 ngày");
+            database.update("INSERT INTO student (id, email, first_name, last_name, ongoing_courses) VALUES (1, 'leejimin@gmail.com', 'Lee', 'Jimin', 0)");
+            database.update("INSERT INTO student (id, email, first_name, last_name, ongoing_courses) VALUES (2, 'other@gmail.com', 'Lee', 'Other', 0)");
+        }
+    }
+
+    @Test
+    void testReadOnlyTransactionUsesReplica() {
+        insertCourse(replica, 2L, "Chỉ có trên replica");
+
+        List<CourseSummary> courses = catalogService.getUpcomingCourses(null, 10).getItems();
+
+        assertEquals(List.of(1L, 2L), courses.stream().map(CourseSummary::getId).toList());
+    }
+
+    @Test
+    void testWritesGoToPrimaryAndAreReadBackFromPrimary() {
+        List<Course> upcoming = registrationService.registerCourse("leejimin@gmail.com", 1L);
+
+        // Danh sách trả về được đọc trong chính transaction ghi
+        assertEquals(List.of(1L), upcoming.stream().map(Course::getId).toList());
+        assertEquals(1, count(primary, 1L));
+        assertEquals(0, count(replica, 1L));
+
+        // Replica chưa có đăng ký này nhưng học viên vẫn thấy nó ngay
+        List<RegistrationSummary> registrations = catalogService.getRegistrations("leejimin@gmail.com", null, 10).getItems();
+        assertEquals(List.of(1L), registrations.stream().map(RegistrationSummary::getCourseId).toList());
+    }
+
+    @Test
+    void testOtherStudentsStillReadFromReplica() {
+        registrationService.registerCourse("leejimin@gmail.com", 1L);
+        replica.update("INSERT INTO registration (student_id, course_id, price, registered_date) VALUES (2, 1, 100000, ?)",
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        assertEquals(1, catalogService.getRegistrations("other@gmail.com", null, 10).getItems().size());
+        assertEquals(0, count(primary, 2L));
+    }
+
+    private void insertCourse(JdbcTemplate database, long id, String name) {
+        LocalDateTime start = LocalDateTime.now().plusDays(id);
+        database.update("INSERT INTO course (id, name, start_time, end_time, price, seats_taken, phase) VALUES (?, ?, ?, ?, 100000, 0, 'UPCOMING')",
+                id, name, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(30)));
+    }
+
+    private int count(JdbcTemplate database, long studentId) {
+        return database.queryForObject("SELECT COUNT(*) FROM registration WHERE student_id = ?", Integer.class, studentId);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.coursesystem.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(OutputCaptureExtension.class)
+class SlowQueryLoggerTest {
+
+    private static final String SQL = "select s1_0.id from student s1_0 where s1_0.email=?";
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void logsSlowQueryWithParametersAndEndpoint(CapturedOutput output) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/register");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/register");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        new SlowQueryLogger(Duration.ofMillis(200), 0).afterQuery(execution(250), query("student1@gmail.com"));
+
+        assertTrue(output.getOut().contains("Slow query 250 ms [POST /api/register] " + SQL + " (student1@gmail.com)"));
+    }
+
+    @Test
+    void skipsFastQueryWhenNotSampled(CapturedOutput output) throws Exception {
+        new SlowQueryLogger(Duration.ofMillis(200), 0).afterQuery(execution(5), query("student1@gmail.com"));
+
+        assertFalse(output.getOut().contains(SQL));
+    }
+
+    @Test
+    void logsSampledFastQuery(CapturedOutput output) throws Exception {
+        new SlowQueryLogger(Duration.ofMillis(200), 1).afterQuery(execution(5), query("student1@gmail.com"));
+
+        assertTrue(output.getOut().contains("Sampled query 5 ms [-] " + SQL + " (student1@gmail.com)"));
+    }
+
+    @Test
+    void formatsSetNullAsNull() throws Exception {
+        Method setNull = PreparedStatement.class.getMethod("setNull", int.class, int.class);
+        QueryInfo queryInfo = new QueryInfo(SQL);
+        queryInfo.getParametersList().add(List.of(new ParameterSetOperation(setNull, new Object[]{1, Types.BIGINT})));
+
+        assertEquals(SQL + " (null)", SlowQueryLogger.format(List.of(queryInfo)));
+    }
+
+    @Test
+    void capsBatchEntriesAndParameters() throws Exception {
+        Method setLong = PreparedStatement.class.getMethod("setLong", int.class, long.class);
+        QueryInfo queryInfo = new QueryInfo(SQL);
+        for (int row = 0; row < 500; row++) {
+            List<ParameterSetOperation> parameters = new ArrayList<>();
+            for (int index = 1; index <= 30; index++) {
+                parameters.add(new ParameterSetOperation(setLong, new Object[]{index, (long) index}));
+            }
+            queryInfo.getParametersList().add(parameters);
+        }
+
+        String formatted = SlowQueryLogger.format(List.of(queryInfo));
+
+        assertTrue(formatted.endsWith("19, 20, ... +10), ... +495"));
+        assertTrue(formatted.length() < 1000);
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo info = new ExecutionInfo();
+        info.setElapsedTime(elapsedMillis);
+        info.setSuccess(true);
+        return info;
+    }
+
+    private static List<QueryInfo> query(Object parameter) throws Exception {
+        Method setString = PreparedStatement.class.getMethod("setString", int.class, String.class);
+        QueryInfo queryInfo = new QueryInfo(SQL);
+        queryInfo.getParametersList().add(List.of(new ParameterSetOperation(setString, new Object[]{1, parameter})));
+        return List.of(queryInfo);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.coursesystem.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationAdmissionInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RegistrationAdmissionInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new RegistrationAdmissionInterceptor(meterRegistry, 2, Duration.ofMinutes(1), 5, Duration.ofMinutes(1),
+                1000, Duration.ofMinutes(10), 2);
+    }
+
+    @Test
+    void testPreHandle_RejectsEmailOverBurstWith429() throws Exception {
+        assertTrue(admit(request("a@gmail.com", "10.0.0.1")));
+        assertTrue(admit(request("A@gmail.com", "10.0.0.2")));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("a@gmail.com", "10.0.0.3"), response, null));
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+        assertEquals("Bạn thao tác quá nhanh, vui lòng thử lại sau", response.getContentAsString());
+        assertEquals(1, rejected("email_rate"));
+
+        // Email khác vẫn được phục vụ
+        assertTrue(admit(request("b@gmail.com", "10.0.0.3")));
+    }
+
+    @Test
+    void testPreHandle_RejectsIpOverBurst() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(admit(request("student" + i + "@gmail.com", "10.0.0.1")));
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("other@gmail.com", "10.0.0.1"), response, null));
+        assertEquals(429, response.getStatus());
+        assertEquals(1, rejected("ip_rate"));
+    }
+
+    @Test
+    void testPreHandle_ShedsLoadOverConcurrencyLimitWith503() throws Exception {
+        MockHttpServletRequest first = request("a@gmail.com", "10.0.0.1");
+        MockHttpServletRequest second = request("b@gmail.com", "10.0.0.2");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(second, new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("c@gmail.com", "10.0.0.3"), response, null));
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, rejected("overloaded"));
+
+        // Request xong thì trả lại chỗ, kể cả khi afterCompletion bị gọi lại
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertTrue(interceptor.preHandle(request("d@gmail.com", "10.0.0.4"), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(request("e@gmail.com", "10.0.0.5"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testPreHandle_BatchWithoutEmailIsLimitedByIpOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/register/batch");
+        request.setRemoteAddr("10.0.0.1");
+
+        assertTrue(admit(request));
+    }
+
+    private boolean admit(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+        return admitted;
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("registration.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static MockHttpServletRequest request(String email, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/register/1/" + email);
+        request.setRemoteAddr(ip);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("courseId", "1", "email", email));
+        return request;
+    }
+}
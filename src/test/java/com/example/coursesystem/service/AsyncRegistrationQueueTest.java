@@ -0,0 +1,189 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.BulkRegistrationResult;
+import com.example.coursesystem.dto.RegistrationTicket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AsyncRegistrationQueueTest {
+
+    @Mock
+    private BulkRegistrationService bulkRegistrationService;
+
+    private AsyncRegistrationQueue asyncRegistrationQueue;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        asyncRegistrationQueue = new AsyncRegistrationQueue(bulkRegistrationService, new SimpleMeterRegistry(),
+                1, 500, Duration.ofMinutes(10), 1000, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (asyncRegistrationQueue.isRunning()) {
+            asyncRegistrationQueue.stop();
+        }
+    }
+
+    @Test
+    void testSubmit_TicketCompletedByWriter() throws Exception {
+        BulkRegistrationRequest request = new BulkRegistrationRequest("leejimin@gmail.com", 1L);
+        when(bulkRegistrationService.registerCourses(List.of(request)))
+                .thenReturn(List.of(BulkRegistrationResult.success(request, 75000L)));
+        asyncRegistrationQueue.start();
+
+        RegistrationTicket ticket = asyncRegistrationQueue.submit(request).orElseThrow();
+        assertEquals(RegistrationTicket.Status.PENDING, ticket.getStatus());
+
+        RegistrationTicket completed = awaitCompletion(ticket.getId());
+        assertEquals(RegistrationTicket.Status.SUCCESS, completed.getStatus());
+        assertEquals(75000L, completed.getPrice());
+    }
+
+    @Test
+    void testSubmit_BatchRolledBackIsRetriedPerRequest() throws Exception {
+        BulkRegistrationRequest first = new BulkRegistrationRequest("student1@gmail.com", 1L);
+        BulkRegistrationRequest second = new BulkRegistrationRequest("student2@gmail.com", 1L);
+        when(bulkRegistrationService.registerCourses(List.of(first, second)))
+                .thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+        when(bulkRegistrationService.registerCourses(List.of(first)))
+                .thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+        when(bulkRegistrationService.registerCourses(List.of(second)))
+                .thenReturn(List.of(BulkRegistrationResult.success(second, 100000L)));
+        asyncRegistrationQueue = new AsyncRegistrationQueue(bulkRegistrationService, new SimpleMeterRegistry(),
+                10, 500, Duration.ofMinutes(10), 1000, Duration.ofSeconds(10));
+
+        // Hai request vào hàng đợi trước khi luồng ghi chạy để được gom chung một lô
+        CountDownLatch release = new CountDownLatch(1);
+        asyncRegistrationQueue.start();
+        BulkRegistrationRequest blocker = new BulkRegistrationRequest("blocker@gmail.com", 2L);
+        when(bulkRegistrationService.registerCourses(List.of(blocker))).thenAnswer(invocation -> {
+            release.await();
+            return List.of(BulkRegistrationResult.success(blocker, 100000L));
+        });
+        asyncRegistrationQueue.submit(blocker);
+        verify(bulkRegistrationService, timeout(1000)).registerCourses(List.of(blocker));
+        String firstTicket = asyncRegistrationQueue.submit(first).orElseThrow().getId();
+        String secondTicket = asyncRegistrationQueue.submit(second).orElseThrow().getId();
+        release.countDown();
+
+        RegistrationTicket failed = awaitCompletion(firstTicket);
+        assertEquals(RegistrationTicket.Status.FAILED, failed.getStatus());
+        assertEquals("Đã đăng ký khóa học này rồi", failed.getMessage());
+        assertEquals(RegistrationTicket.Status.SUCCESS, awaitCompletion(secondTicket).getStatus());
+    }
+
+    @Test
+    void testSubmit_UnexpectedErrorOnRetryFailsOnlyThatRequest() throws Exception {
+        BulkRegistrationRequest first = new BulkRegistrationRequest("student1@gmail.com", 1L);
+        BulkRegistrationRequest second = new BulkRegistrationRequest("student2@gmail.com", 1L);
+        BulkRegistrationRequest later = new BulkRegistrationRequest("student3@gmail.com", 1L);
+        when(bulkRegistrationService.registerCourses(List.of(first, second)))
+                .thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+        when(bulkRegistrationService.registerCourses(List.of(first)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key in course_stats"));
+        when(bulkRegistrationService.registerCourses(List.of(second)))
+                .thenReturn(List.of(BulkRegistrationResult.success(second, 100000L)));
+        when(bulkRegistrationService.registerCourses(List.of(later)))
+                .thenReturn(List.of(BulkRegistrationResult.success(later, 100000L)));
+        asyncRegistrationQueue = new AsyncRegistrationQueue(bulkRegistrationService, new SimpleMeterRegistry(),
+                10, 500, Duration.ofMinutes(10), 1000, Duration.ofSeconds(10));
+
+        CountDownLatch release = new CountDownLatch(1);
+        asyncRegistrationQueue.start();
+        BulkRegistrationRequest blocker = new BulkRegistrationRequest("blocker@gmail.com", 2L);
+        when(bulkRegistrationService.registerCourses(List.of(blocker))).thenAnswer(invocation -> {
+            release.await();
+            return List.of(BulkRegistrationResult.success(blocker, 100000L));
+        });
+        asyncRegistrationQueue.submit(blocker);
+        verify(bulkRegistrationService, timeout(1000)).registerCourses(List.of(blocker));
+        String firstTicket = asyncRegistrationQueue.submit(first).orElseThrow().getId();
+        String secondTicket = asyncRegistrationQueue.submit(second).orElseThrow().getId();
+        release.countDown();
+
+        RegistrationTicket failed = awaitCompletion(firstTicket);
+        assertEquals(RegistrationTicket.Status.FAILED, failed.getStatus());
+        assertEquals("Đăng ký thất bại, vui lòng thử lại", failed.getMessage());
+        assertEquals(RegistrationTicket.Status.SUCCESS, awaitCompletion(secondTicket).getStatus());
+        // Luồng ghi vẫn chạy và xử lý request sau đó
+        String laterTicket = asyncRegistrationQueue.submit(later).orElseThrow().getId();
+        assertEquals(RegistrationTicket.Status.SUCCESS, awaitCompletion(laterTicket).getStatus());
+    }
+
+    @Test
+    void testSubmit_RejectedWhenQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkRegistrationService.registerCourses(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return invocation.<List<BulkRegistrationRequest>>getArgument(0).stream()
+                    .map(request -> BulkRegistrationResult.success(request, 100000L))
+                    .toList();
+        });
+        asyncRegistrationQueue.start();
+
+        assertTrue(asyncRegistrationQueue.submit(new BulkRegistrationRequest("student1@gmail.com", 1L)).isPresent());
+        verify(bulkRegistrationService, timeout(1000)).registerCourses(anyList());
+        assertTrue(asyncRegistrationQueue.submit(new BulkRegistrationRequest("student2@gmail.com", 1L)).isPresent());
+        assertTrue(asyncRegistrationQueue.submit(new BulkRegistrationRequest("student3@gmail.com", 1L)).isEmpty());
+        release.countDown();
+    }
+
+    @Test
+    void testStop_InterruptsWriterAfterShutdownTimeout() throws Exception {
+        asyncRegistrationQueue = new AsyncRegistrationQueue(bulkRegistrationService, new SimpleMeterRegistry(),
+                10, 500, Duration.ofMinutes(10), 1000, Duration.ofMillis(100));
+        CountDownLatch never = new CountDownLatch(1);
+        when(bulkRegistrationService.registerCourses(anyList())).thenAnswer(invocation -> {
+            never.await();
+            return List.of();
+        });
+        asyncRegistrationQueue.start();
+        asyncRegistrationQueue.submit(new BulkRegistrationRequest("student1@gmail.com", 1L));
+        verify(bulkRegistrationService, timeout(1000)).registerCourses(anyList());
+
+        long started = System.nanoTime();
+        asyncRegistrationQueue.stop();
+
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+        assertFalse(asyncRegistrationQueue.isRunning());
+    }
+
+    @Test
+    void testSubmit_InvalidRequest() {
+        asyncRegistrationQueue.start();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            asyncRegistrationQueue.submit(new BulkRegistrationRequest(" ", 1L));
+        });
+        assertEquals("Thiếu email hoặc mã khóa học", exception.getMessage());
+    }
+
+    private RegistrationTicket awaitCompletion(String ticketId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            RegistrationTicket ticket = asyncRegistrationQueue.getTicket(ticketId).orElseThrow();
+            if (ticket.getStatus() != RegistrationTicket.Status.PENDING) {
+                return ticket;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Ticket chưa được xử lý: " + ticketId);
+    }
+}
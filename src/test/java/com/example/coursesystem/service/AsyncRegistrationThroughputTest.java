@@ -0,0 +1,128 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.RegistrationTicket;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// mvn test -Pbenchmark -Dtest=AsyncRegistrationThroughputTest
+// Cùng số luồng client và pool kết nối nhỏ như lúc mở khóa học: so sánh số đăng ký/giây
+// của registerCourse (mỗi request một transaction) với hàng đợi group commit
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:async-benchmark;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "registration.async.enabled=true",
+        "logging.level.root=WARN"
+})
+class AsyncRegistrationThroughputTest {
+
+    private static final int STUDENTS = 20_000;
+    private static final int CLIENTS = 64;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private AsyncRegistrationQueue asyncRegistrationQueue;
+
+    @BeforeAll
+    void seed() {
+        LocalDateTime start = LocalDateTime.now().plusDays(30);
+        jdbcTemplate.batchUpdate("INSERT INTO course (id, name, start_time, end_time, price, seats_taken, phase) VALUES (?, ?, ?, ?, ?, 0, 'UPCOMING')",
+                List.of(new Object[]{1L, "Khóa học đồng bộ", Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(30)), 100000L},
+                        new Object[]{2L, "Khóa học bất đồng bộ", Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(30)), 100000L}));
+        List<Object[]> batch = new ArrayList<>();
+        for (long id = 1; id <= STUDENTS; id++) {
+            batch.add(new Object[]{id, email(id), "Lee", "Jimin " + id});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO student (id, email, first_name, last_name, ongoing_courses) VALUES (?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @Test
+    void compareThroughput() throws Exception {
+        double sync = run("registerCourse (sync)", id -> registrationService.registerCourse(email(id), 1L));
+
+        ConcurrentLinkedQueue<String> tickets = new ConcurrentLinkedQueue<>();
+        double async = run("AsyncRegistrationQueue (group commit)", id -> {
+            while (true) {
+                var ticket = asyncRegistrationQueue.submit(new BulkRegistrationRequest(email(id), 2L));
+                if (ticket.isPresent()) {
+                    tickets.add(ticket.get().getId());
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        }, () -> tickets.forEach(this::awaitSuccess));
+
+        assertEquals(STUDENTS, countRegistrations(1L));
+        assertEquals(STUDENTS, countRegistrations(2L));
+        assertTrue(async > 0 && sync > 0);
+    }
+
+    private double run(String name, LongConsumer register) throws Exception {
+        return run(name, register, () -> {
+        });
+    }
+
+    private double run(String name, LongConsumer register, Runnable awaitDone) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        for (long id = 1; id <= STUDENTS; id++) {
+            long studentId = id;
+            executor.execute(() -> register.accept(studentId));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        awaitDone.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = STUDENTS / seconds;
+        System.out.printf("[%s] %d registrations, %d clients: %.0f registrations/s%n", name, STUDENTS, CLIENTS, throughput);
+        return throughput;
+    }
+
+    private void awaitSuccess(String ticketId) {
+        while (true) {
+            RegistrationTicket ticket = asyncRegistrationQueue.getTicket(ticketId).orElseThrow();
+            if (ticket.getStatus() != RegistrationTicket.Status.PENDING) {
+                assertEquals(RegistrationTicket.Status.SUCCESS, ticket.getStatus(), ticket.getMessage());
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private int countRegistrations(long courseId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM registration WHERE course_id = ?", Integer.class, courseId);
+    }
+
+    private static String email(long id) {
+        return "student" + id + "@gmail.com";
+    }
+}
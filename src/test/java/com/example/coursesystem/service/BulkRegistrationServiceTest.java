@@ -0,0 +1,186 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.CatalogVersion;
+import com.example.coursesystem.cache.StudentScheduleCache;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.dto.BulkRegistrationRequest;
+import com.example.coursesystem.dto.BulkRegistrationResult;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.RegistrationRepository;
+import jakarta.persistence.EntityManagerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Refresh định kỳ của ChangeFeed chạy trên thread khác và làm lệch số câu lệnh đếm được
+@DataJpaTest(properties = "changes.refresh-interval=1h")
+@Import({BulkRegistrationService.class, OngoingCourseCounter.class, CourseStatsService.class, StudentScheduleCache.class, CatalogVersion.class, ReadYourWrites.class, ChangeFeed.class, ThreadPoolTaskScheduler.class, SimpleMeterRegistry.class})
+class BulkRegistrationServiceTest {
+
+    private static final int STUDENTS = 120;
+
+    @Autowired
+    private BulkRegistrationService bulkRegistrationService;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private OngoingCourseCounter ongoingCourseCounter;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Student> students;
+    private Course upcomingCourse;
+    private Course limitedCourse;
+    private Course ongoingCourse;
+
+    @BeforeEach
+    void setUp() {
+        students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(entityManager.persist(Student.builder()
+                    .email("student" + i + "@gmail.com")
+                    .firstName("Lee")
+                    .lastName("Jimin " + i)
+                    .build()));
+        }
+
+        // Bắt đầu sau khi khóa đang diễn ra kết thúc để không trùng lịch
+        upcomingCourse = entityManager.persist(course("Học làm giàu trong 1 ngày", 5, null));
+        limitedCourse = entityManager.persist(course("Đào tạo văn hóa trước khi sang Cam", 2, 5));
+        ongoingCourse = entityManager.persist(course("Khóa học đang diễn ra", -1, null));
+
+        entityManager.persist(registration(students.get(0), upcomingCourse));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testRegisterCourses_ResultPerRow() {
+        Course secondOngoing = entityManager.persist(course("Khóa học đang diễn ra 2", -1, null));
+        entityManager.persist(registration(students.get(1), ongoingCourse));
+        entityManager.persist(registration(students.get(1), secondOngoing));
+        entityManager.flush();
+        ongoingCourseCounter.advance();
+        entityManager.clear();
+
+        List<BulkRegistrationRequest> requests = List.of(
+                new BulkRegistrationRequest("student0@gmail.com", upcomingCourse.getId()),
+                new BulkRegistrationRequest("student1@gmail.com", upcomingCourse.getId()),
+                new BulkRegistrationRequest("student1@gmail.com", upcomingCourse.getId()),
+                new BulkRegistrationRequest("unknown@gmail.com", upcomingCourse.getId()),
+                new BulkRegistrationRequest("student2@gmail.com", -1L),
+                new BulkRegistrationRequest("student2@gmail.com", ongoingCourse.getId()));
+
+        List<BulkRegistrationResult> results = bulkRegistrationService.registerCourses(requests);
+
+        assertEquals(requests.size(), results.size());
+        assertEquals("Đã đăng ký khóa học này rồi", results.get(0).getMessage());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(75000L, results.get(1).getPrice());
+        assertEquals("Đã đăng ký khóa học này rồi", results.get(2).getMessage());
+        assertEquals("Không tìm thấy học viên", results.get(3).getMessage());
+        assertEquals("Không tìm thấy khóa học", results.get(4).getMessage());
+        assertEquals("Không thể đăng ký khóa học đã bắt đầu", results.get(5).getMessage());
+        assertTrue(registrationRepository.findByStudentIdAndCourseId(students.get(1).getId(), upcomingCourse.getId()).isPresent());
+    }
+
+    @Test
+    void testRegisterCourses_RespectsCapacity() {
+        List<BulkRegistrationRequest> requests = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            requests.add(new BulkRegistrationRequest("student" + i + "@gmail.com", limitedCourse.getId()));
+        }
+
+        List<BulkRegistrationResult> results = bulkRegistrationService.registerCourses(requests);
+
+        assertEquals(5, results.stream().filter(BulkRegistrationResult::isSuccess).count());
+        assertEquals("Khóa học đã hết chỗ", results.get(9).getMessage());
+        entityManager.clear();
+        assertEquals(5, entityManager.find(Course.class, limitedCourse.getId()).getSeatsTaken());
+    }
+
+    @Test
+    void testRegisterCourses_ConcurrentClaimsRejectOnlyOverflowRows() {
+        // Khóa học đã nằm trong persistence context với 0 chỗ đã giữ, trong khi đăng ký khác đã lấy 3 chỗ
+        entityManager.find(Course.class, limitedCourse.getId());
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE course SET seats_taken = 3 WHERE id = " + limitedCourse.getId())
+                .executeUpdate();
+        List<BulkRegistrationRequest> requests = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            requests.add(new BulkRegistrationRequest("student" + i + "@gmail.com", limitedCourse.getId()));
+        }
+
+        List<BulkRegistrationResult> results = bulkRegistrationService.registerCourses(requests);
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals("Khóa học đã hết chỗ", results.get(2).getMessage());
+        assertEquals("Khóa học đã hết chỗ", results.get(3).getMessage());
+        entityManager.clear();
+        assertEquals(5, entityManager.find(Course.class, limitedCourse.getId()).getSeatsTaken());
+        assertEquals(2, registrationRepository.findAll().stream()
+                .filter(registration -> registration.getCourseId().equals(limitedCourse.getId()))
+                .count());
+    }
+
+    @Test
+    void testRegisterCourses_StatementCountDoesNotGrowWithRows() {
+        List<BulkRegistrationRequest> requests = new ArrayList<>();
+        for (int i = 1; i < STUDENTS; i++) {
+            requests.add(new BulkRegistrationRequest("student" + i + "@gmail.com", upcomingCourse.getId()));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BulkRegistrationResult> results = bulkRegistrationService.registerCourses(requests);
+
+        assertTrue(results.stream().allMatch(BulkRegistrationResult::isSuccess));
+        // students, courses, existing registrations, schedules + one INSERT reused by every JDBC batch
+        // + stats per stripe of the course (bounded by course-stats.stripes, not by rows):
+        //   UPDATE, UPDATE again after the first registration on that stripe inserts it through JdbcTemplate
+        assertEquals(5 + 2 * 16, statistics.getPrepareStatementCount());
+    }
+
+    private Course course(String name, int startsInDays, Integer capacity) {
+        return Course.builder()
+                .name(name)
+                .startTime(LocalDateTime.now().plusDays(startsInDays))
+                .endTime(LocalDateTime.now().plusDays(startsInDays + 5))
+                .price(100000L)
+                .capacity(capacity)
+                .build();
+    }
+
+    private Registration registration(Student student, Course course) {
+        return Registration.builder()
+                .studentId(student.getId())
+                .courseId(course.getId())
+                .price(course.getPrice())
+                .registeredDate(LocalDateTime.now())
+                .build();
+    }
+}
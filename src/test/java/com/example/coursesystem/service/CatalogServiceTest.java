@@ -0,0 +1,176 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.CourseSearchIndex;
+import com.example.coursesystem.cache.StudentIdCache;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.dto.CourseSummary;
+import com.example.coursesystem.dto.KeysetPage;
+import com.example.coursesystem.dto.RegistrationSummary;
+import com.example.coursesystem.model.ArchivedRegistration;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.Student;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({CatalogService.class, CourseSearchIndex.class, StudentIdCache.class, ReadYourWrites.class, SimpleMeterRegistry.class})
+class CatalogServiceTest {
+
+    private static final int UPCOMING_COURSES = 230;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Student student;
+    private final List<Long> upcomingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        student = entityManager.persist(Student.builder()
+                .email("leejimin@gmail.com")
+                .firstName("Lee")
+                .lastName("Jimin")
+                .build());
+
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        entityManager.persist(course("Khóa học đã bắt đầu", base.minusDays(1)));
+        // Ba khóa cùng giờ bắt đầu để kiểm tra id phân định thứ tự
+        for (int i = 0; i < UPCOMING_COURSES; i++) {
+            Course course = entityManager.persist(course("Khóa học " + i, base.plusDays(1 + i / 3)));
+            upcomingIds.add(course.getId());
+            if (i % 30 == 0) {
+                entityManager.persist(Registration.builder()
+                        .studentId(student.getId())
+                        .courseId(course.getId())
+                        .price(course.getPrice())
+                        .registeredDate(base)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testGetUpcomingCourses_PagesThroughCatalogWithOneStatementPerPage() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            KeysetPage<CourseSummary> page = catalogService.getUpcomingCourses(cursor, 50);
+            assertEquals(1, statistics.getPrepareStatementCount());
+            page.getItems().forEach(course -> seen.add(course.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, pages);
+        assertEquals(upcomingIds, seen);
+    }
+
+    @Test
+    void testGetRegistrations_PagesInStartTimeOrder() {
+        KeysetPage<RegistrationSummary> first = catalogService.getRegistrations(student.getEmail(), null, 5);
+        KeysetPage<RegistrationSummary> second = catalogService.getRegistrations(student.getEmail(), first.getNextCursor(), 5);
+
+        assertEquals(5, first.getItems().size());
+        assertEquals(upcomingIds.get(0), first.getItems().get(0).getCourseId());
+        assertEquals(3, second.getItems().size());
+        assertEquals(upcomingIds.get(210), second.getItems().get(2).getCourseId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetRegistrations_StudentNotFound() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            catalogService.getRegistrations("unknown@gmail.com", null, 5);
+        });
+        assertEquals("Không tìm thấy học viên", exception.getMessage());
+    }
+
+    @Test
+    void testGetArchivedRegistrations_ReadsOnlyArchiveTable() {
+        // Học viên riêng: StudentIdCache dùng chung giữa các test còn id thì đổi sau mỗi lần rollback
+        Student alumnus = entityManager.persist(Student.builder()
+                .email("alumnus@gmail.com")
+                .firstName("Lee")
+                .lastName("Jimin")
+                .build());
+        LocalDateTime start = LocalDateTime.now().minusYears(1).truncatedTo(ChronoUnit.SECONDS);
+        Course finished = entityManager.persist(course("Khóa học năm ngoái", start));
+        entityManager.persist(ArchivedRegistration.builder()
+                .studentId(alumnus.getId())
+                .courseId(finished.getId())
+                .price(75000L)
+                .registeredDate(start.minusDays(7))
+                .archivedDate(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+
+        KeysetPage<RegistrationSummary> archived = catalogService.getArchivedRegistrations(alumnus.getEmail(), null, 5);
+
+        assertEquals(1, archived.getItems().size());
+        assertEquals(finished.getId(), archived.getItems().get(0).getCourseId());
+        assertEquals(75000L, archived.getItems().get(0).getPrice());
+        assertNull(archived.getNextCursor());
+        assertTrue(catalogService.getRegistrations(alumnus.getEmail(), null, 5).getItems().isEmpty());
+    }
+
+    @Test
+    void testGetUpcomingCourses_InvalidCursor() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            catalogService.getUpcomingCourses("not-a-cursor", 5);
+        });
+        assertEquals("Cursor không hợp lệ", exception.getMessage());
+    }
+
+    @Test
+    void testSearchCourses_DefaultsToCoursesNotStartedYet() {
+        entityManager.flush();
+        courseSearchIndex.rebuild();
+
+        List<CourseSummary> found = catalogService.searchCourses("khoa hoc", null, null, null, null, 200);
+
+        assertEquals(upcomingIds.subList(0, 200), found.stream().map(CourseSummary::getId).toList());
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            catalogService.searchCourses("khoa", LocalDateTime.now().plusDays(2), LocalDateTime.now(), null, null, null);
+        });
+        assertEquals("Khoảng thời gian không hợp lệ", exception.getMessage());
+    }
+
+    private Course course(String name, LocalDateTime startTime) {
+        return Course.builder()
+                .name(name)
+                .startTime(startTime)
+                .endTime(startTime.plusDays(5))
+                .price(100000L)
+                .build();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.ChangeBatch;
+import com.example.coursesystem.model.ChangeEvent;
+import com.example.coursesystem.model.ChangeType;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.repository.ChangeEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedTest {
+
+    @Mock
+    private ChangeEventRepository changeEventRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    // Các dòng đã commit trong change_event
+    private final List<ChangeEvent> outbox = new ArrayList<>();
+
+    private ChangeEvent deleted;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(changeEventRepository.findByIdGreaterThanOrderById(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable limit = invocation.getArgument(1);
+            return outbox.stream().filter(event -> event.getId() > after).limit(limit.getPageSize()).toList();
+        });
+        when(changeEventRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<ChangeEvent> found = new ArrayList<>();
+            ids.forEach(id -> outbox.stream().filter(event -> event.getId().equals(id)).forEach(found::add));
+            return found;
+        });
+        // Ghi lại sự kiện commit muộn: xóa dòng cũ, chèn bản sao với id kế tiếp
+        when(jdbcTemplate.update(anyString(), anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(1);
+            deleted = outbox.stream().filter(event -> event.getId() == id).findFirst().orElse(null);
+            return deleted != null && outbox.remove(deleted) ? 1 : 0;
+        });
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenAnswer(invocation -> {
+            long next = outbox.stream().mapToLong(ChangeEvent::getId).max().orElse(0) + 1;
+            outbox.add(ChangeEvent.builder().id(next).type(deleted.getType()).courseId(deleted.getCourseId())
+                    .studentId(deleted.getStudentId()).build());
+            return 1;
+        });
+    }
+
+    @Test
+    void testWhenAvailable_WaiterIsWokenByRefresh() {
+        ChangeFeed changeFeed = changeFeed(Duration.ofMinutes(1));
+        AtomicReference<ChangeBatch> received = new AtomicReference<>();
+
+        assertNotNull(changeFeed.whenAvailable(0, received::set));
+        assertNull(received.get());
+
+        commit(1, 2);
+        changeFeed.refresh();
+
+        assertEquals(List.of(1L, 2L), ids(received.get()));
+        assertEquals(2, received.get().getNext());
+        assertFalse(received.get().isResyncRequired());
+    }
+
+    @Test
+    void testRefresh_WaitsForMissingIdUntilRolledBack() {
+        ChangeFeed changeFeed = changeFeed(Duration.ofMinutes(1));
+        // Id 2 chưa commit
+        commit(1, 3);
+        changeFeed.refresh();
+
+        assertEquals(1, changeFeed.head());
+        assertEquals(List.of(1L), ids(changeFeed.read(0)));
+
+        changeFeed.skip(2);
+
+        ChangeBatch batch = changeFeed.read(1);
+        assertEquals(List.of(3L), ids(batch));
+        assertEquals(3, batch.getNext());
+    }
+
+    @Test
+    void testRefresh_SkipsIdMissingLongerThanGapTimeout() {
+        ChangeFeed changeFeed = changeFeed(Duration.ZERO);
+        commit(1, 3);
+
+        changeFeed.refresh();
+
+        assertEquals(3, changeFeed.head());
+        assertEquals(1, meterRegistry.get("changes.skipped").counter().count());
+    }
+
+    @Test
+    void testRefresh_AdjacentMissingIdsTimeOutTogether() throws InterruptedException {
+        ChangeFeed changeFeed = changeFeed(Duration.ofMillis(200));
+        // Id 2, 3, 4 chưa bao giờ commit
+        commit(1, 5);
+        changeFeed.refresh();
+        assertEquals(1, changeFeed.head());
+
+        Thread.sleep(300);
+        changeFeed.refresh();
+
+        assertEquals(5, changeFeed.head());
+        assertEquals(3, meterRegistry.get("changes.skipped").counter().count());
+    }
+
+    @Test
+    void testRegisteredAll_RollbackSkipsEveryGeneratedId() {
+        ChangeFeed changeFeed = changeFeed(Duration.ofMinutes(1));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            KeyHolder keyHolder = invocation.getArgument(2);
+            keyHolder.getKeyList().add(Map.of("ID", 2L));
+            keyHolder.getKeyList().add(Map.of("ID", 3L));
+            return new int[]{1, 1};
+        });
+        commit(1, 4);
+        changeFeed.refresh();
+        assertEquals(1, changeFeed.head());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeFeed.registeredAll(List.of(
+                    Registration.builder().studentId(2L).courseId(1L).build(),
+                    Registration.builder().studentId(3L).courseId(1L).build()));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Không phải chờ gap-timeout cho id nào của lô đã rollback
+        assertEquals(4, changeFeed.head());
+        assertEquals(List.of(4L), ids(changeFeed.read(1)));
+    }
+
+    @Test
+    void testRefresh_RepublishesSkippedIdThatCommitsLate() {
+        ChangeFeed changeFeed = changeFeed(Duration.ZERO);
+        commit(1, 3);
+        changeFeed.refresh();
+        assertEquals(3, changeFeed.head());
+
+        // Transaction của id 2 chỉ chậm, commit sau khi đã bị bỏ qua
+        commit(2);
+        changeFeed.refresh();
+
+        ChangeBatch batch = changeFeed.read(3);
+        assertEquals(List.of(4L), ids(batch));
+        assertEquals(2L, batch.getEvents().get(0).getStudentId());
+        assertEquals(List.of(1L, 3L), ids(changeFeed.read(0)));
+        assertEquals(1, meterRegistry.get("changes.republished").counter().count());
+
+        // Lần refresh sau không ghi lại lần nữa
+        changeFeed.refresh();
+        assertEquals(4, changeFeed.head());
+        assertEquals(1, meterRegistry.get("changes.republished").counter().count());
+    }
+
+    @Test
+    void testRead_FarBehindClientMustResync() {
+        ChangeFeed changeFeed = changeFeed(Duration.ofMinutes(1));
+        for (long id = 1; id <= 20; id++) {
+            commit(id);
+        }
+        // Mỗi lần refresh nạp tối đa dung lượng ring (8)
+        while (changeFeed.head() < 20) {
+            changeFeed.refresh();
+        }
+
+        ChangeBatch behind = changeFeed.read(2);
+        assertTrue(behind.isResyncRequired());
+        assertEquals(20, behind.getNext());
+        assertTrue(behind.getEvents().isEmpty());
+
+        ChangeBatch recent = changeFeed.read(15);
+        assertEquals(List.of(16L, 17L, 18L), ids(recent));
+        assertEquals(18, recent.getNext());
+        assertEquals(1, meterRegistry.get("changes.resync").counter().count());
+    }
+
+    @Test
+    void testWhenAvailable_LimitsWaitingClients() {
+        ChangeFeed changeFeed = changeFeed(Duration.ofMinutes(1));
+
+        Runnable first = changeFeed.whenAvailable(0, batch -> {
+        });
+        assertNotNull(changeFeed.whenAvailable(0, batch -> {
+        }));
+        assertNull(changeFeed.whenAvailable(0, batch -> {
+        }));
+
+        first.run();
+        assertNotNull(changeFeed.whenAvailable(0, batch -> {
+        }));
+    }
+
+    private ChangeFeed changeFeed(Duration gapTimeout) {
+        return new ChangeFeed(changeEventRepository, jdbcTemplate, taskScheduler, transactionManager, meterRegistry, 8, 3, gapTimeout, 2);
+    }
+
+    private void commit(long... ids) {
+        for (long id : ids) {
+            outbox.add(ChangeEvent.builder().id(id).type(ChangeType.REGISTERED).courseId(1L).studentId(id).build());
+        }
+    }
+
+    private static List<Long> ids(ChangeBatch batch) {
+        return batch.getEvents().stream().map(ChangeEvent::getId).toList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.CourseStatsSummary;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.CourseStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@Import(CourseStatsService.class)
+class CourseStatsServiceTest {
+
+    @Autowired
+    private CourseStatsService courseStatsService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Course course;
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() {
+        course = entityManager.persist(Course.builder()
+                .name("Học làm giàu trong 1 ngày")
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(5))
+                .price(100000L)
+                .build());
+        students = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            students.add(entityManager.persist(Student.builder()
+                    .email("student" + i + "@gmail.com")
+                    .firstName("Lee")
+                    .lastName("Jimin " + i)
+                    .build()));
+        }
+    }
+
+    @Test
+    void testRegistrationAddedAndRemoved_MergesStripesOnRead() {
+        for (int i = 0; i < students.size(); i++) {
+            // Mỗi học viên thứ tư được giảm giá
+            courseStatsService.registrationAdded(students.get(i).getId(), course.getId(), i % 4 == 0 ? 75000L : 100000L);
+        }
+        courseStatsService.registrationRemoved(students.get(0).getId(), course.getId(), 75000L);
+
+        CourseStatsSummary stats = courseStatsService.getStats(course.getId());
+        assertEquals(39, stats.getRegistrations());
+        assertEquals(9 * 75000L + 30 * 100000L, stats.getRevenue());
+        assertEquals(course.getName(), stats.getCourseName());
+        assertTrue(stripeRows() > 1);
+    }
+
+    @Test
+    void testRegistrationsAdded_SpreadsAcrossStripes() {
+        List<Registration> registrations = new ArrayList<>();
+        for (Student student : students) {
+            registrations.add(registration(student, 100000L));
+        }
+
+        courseStatsService.registrationsAdded(registrations);
+
+        // 40 học viên id liên tiếp rơi vào đủ 16 dòng, giống như đăng ký lẻ
+        assertEquals(16, stripeRows());
+        assertEquals(40L * 100000L, courseStatsService.getStats(course.getId()).getRevenue());
+    }
+
+    @Test
+    void testRebuild_RecomputesFromRegistrations() {
+        for (int i = 0; i < 10; i++) {
+            entityManager.persist(registration(students.get(i), i < 3 ? 75000L : 100000L));
+        }
+        // Thống kê bị lệch so với dữ liệu đăng ký
+        courseStatsService.registrationAdded(students.get(0).getId(), course.getId(), 999L);
+        entityManager.flush();
+
+        assertEquals(1, courseStatsService.rebuild());
+
+        List<CourseStatsSummary> stats = courseStatsService.getStats();
+        assertEquals(1, stats.size());
+        assertEquals(10, stats.get(0).getRegistrations());
+        assertEquals(3 * 75000L + 7 * 100000L, stats.get(0).getRevenue());
+        // Mọi stripe được tạo sẵn để lần đăng ký sau chỉ cần UPDATE
+        assertEquals(16, stripeRows());
+    }
+
+    @Test
+    void testRegistrationAdded_ConcurrentFirstInsertRetriesUpdate() {
+        CourseStatsRepository repository = mock(CourseStatsRepository.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // Dòng chưa có khi UPDATE, nhưng một đăng ký khác đã INSERT nó trước
+        when(repository.add(1L, 2, 1, 100000L)).thenReturn(0, 1);
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(2))).thenThrow(new DuplicateKeyException("duplicate"));
+
+        new CourseStatsService(repository, jdbcTemplate, 16).registrationAdded(18L, 1L, 100000L);
+
+        verify(repository, times(2)).add(1L, 2, 1, 100000L);
+    }
+
+    @Test
+    void testGetStats_CourseWithoutRegistrations() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> courseStatsService.getStats(course.getId()));
+        assertEquals("Không tìm thấy thống kê khóa học", exception.getMessage());
+    }
+
+    private long stripeRows() {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(s) FROM CourseStats s WHERE s.courseId = :courseId", Long.class)
+                .setParameter("courseId", course.getId())
+                .getSingleResult();
+    }
+
+    private Registration registration(Student student, Long price) {
+        return Registration.builder()
+                .studentId(student.getId())
+                .courseId(course.getId())
+                .price(price)
+                .registeredDate(LocalDateTime.now())
+                .build();
+    }
+}
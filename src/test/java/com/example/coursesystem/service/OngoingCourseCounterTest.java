@@ -0,0 +1,152 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.CatalogVersion;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.CoursePhase;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.RegistrationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({OngoingCourseCounter.class, CatalogVersion.class, SimpleMeterRegistry.class})
+class OngoingCourseCounterTest {
+
+    @Autowired
+    private OngoingCourseCounter ongoingCourseCounter;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        student = entityManager.persist(Student.builder()
+                .email("leejimin@gmail.com")
+                .firstName("Lee")
+                .lastName("Jimin")
+                .build());
+    }
+
+    @Test
+    void testAdvance_CountsCourseWhenItStartsAndUncountsWhenItEnds() {
+        Course course = register(course(-1, 5));
+        Course finished = register(course(-10, -5));
+
+        assertEquals(2, advance());
+        assertEquals(1, ongoingCourses());
+        assertEquals(CoursePhase.FINISHED, entityManager.find(Course.class, finished.getId()).getPhase());
+        assertEquals(0, advance());
+
+        Course started = entityManager.find(Course.class, course.getId());
+        started.setEndTime(LocalDateTime.now().minusMinutes(1));
+        entityManager.flush();
+
+        assertEquals(1, advance());
+        assertEquals(0, ongoingCourses());
+        assertEquals(CoursePhase.FINISHED, entityManager.find(Course.class, course.getId()).getPhase());
+    }
+
+    @Test
+    void testAdvance_BumpsCatalogVersionOnlyWhenCourseLeavesUpcoming() {
+        Course course = entityManager.persist(course(-1, 5));
+        entityManager.flush();
+
+        long before = catalogVersion.current();
+        advance();
+        assertTrue(catalogVersion.current() > before);
+
+        Course started = entityManager.find(Course.class, course.getId());
+        started.setEndTime(LocalDateTime.now().minusMinutes(1));
+        entityManager.flush();
+
+        // Bản thân lần sửa Course đi qua entity listener; advance sang FINISHED không tăng thêm
+        long afterUpdate = catalogVersion.current();
+        assertEquals(1, advance());
+        assertEquals(afterUpdate, catalogVersion.current());
+    }
+
+    @Test
+    void testRegistrationAdded_CountsOnlyOngoingCourses() {
+        Course upcoming = entityManager.persist(course(1, 5));
+        Course ongoing = entityManager.persist(course(-1, 5));
+        advance();
+
+        ongoingCourseCounter.registrationAdded(student.getId(), entityManager.find(Course.class, upcoming.getId()));
+        ongoingCourseCounter.registrationAdded(student.getId(), entityManager.find(Course.class, ongoing.getId()));
+
+        assertEquals(1, ongoingCourses());
+    }
+
+    @Test
+    void testReconcile_CorrectsDriftAgainstQuery() {
+        register(course(-1, 5));
+        register(course(-2, 5));
+        advance();
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Student s SET s.ongoingCourses = 7 WHERE s.id = :id")
+                .setParameter("id", student.getId())
+                .executeUpdate();
+
+        assertEquals(1, ongoingCourseCounter.reconcile());
+
+        assertEquals(registrationRepository.countOngoingCoursesByStudentId(student.getId(), LocalDateTime.now()), ongoingCourses());
+        assertEquals(2, ongoingCourses());
+        assertEquals(1, meterRegistry.get("registration.ongoing.corrections").counter().count());
+        assertEquals(0, ongoingCourseCounter.reconcile());
+    }
+
+    private int advance() {
+        int changed = ongoingCourseCounter.advance();
+        entityManager.clear();
+        return changed;
+    }
+
+    private int ongoingCourses() {
+        entityManager.clear();
+        return entityManager.find(Student.class, student.getId()).getOngoingCourses();
+    }
+
+    private Course register(Course course) {
+        entityManager.persist(course);
+        entityManager.persist(Registration.builder()
+                .studentId(student.getId())
+                .courseId(course.getId())
+                .price(course.getPrice())
+                .registeredDate(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+        return course;
+    }
+
+    private Course course(int startsInDays, int endsInDays) {
+        return Course.builder()
+                .name("Khóa học")
+                .startTime(LocalDateTime.now().plusDays(startsInDays))
+                .endTime(LocalDateTime.now().plusDays(endsInDays))
+                .price(100000L)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.CourseStatsSummary;
+import com.example.coursesystem.model.ArchivedRegistration;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.RegistrationId;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.ArchivedRegistrationRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({RegistrationArchiver.class, CourseStatsService.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {
+        "registration.archive.retention=30d",
+        "registration.archive.batch-size=3",
+        "registration.archive.batch-delay=0ms"
+})
+class RegistrationArchiverTest {
+
+    @Autowired
+    private RegistrationArchiver registrationArchiver;
+
+    @Autowired
+    private CourseStatsService courseStatsService;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private ArchivedRegistrationRepository archivedRegistrationRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Student> students = new ArrayList<>();
+    private Course oldCourse;
+    private Course otherOldCourse;
+    private Course recentCourse;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            students.add(entityManager.persist(Student.builder()
+                    .email("student" + i + "@gmail.com")
+                    .firstName("Lee")
+                    .lastName("Jimin " + i)
+                    .build()));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        oldCourse = entityManager.persist(course("Khóa học năm ngoái", now.minusDays(400)));
+        otherOldCourse = entityManager.persist(course("Khóa học tháng trước", now.minusDays(45)));
+        // Kết thúc chưa quá 30 ngày
+        recentCourse = entityManager.persist(course("Khóa học vừa xong", now.minusDays(10)));
+        for (Student student : students) {
+            entityManager.persist(registration(student, oldCourse));
+            entityManager.persist(registration(student, recentCourse));
+        }
+        entityManager.persist(registration(students.get(0), otherOldCourse));
+        entityManager.persist(registration(students.get(1), otherOldCourse));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testArchive_MovesRegistrationsOfCoursesPastRetentionInBatches() {
+        // 7 dòng, lô 3 dòng: lô thứ hai nằm vắt qua hai khóa học
+        assertEquals(7, registrationArchiver.archive());
+
+        assertEquals(5, registrationRepository.count());
+        assertTrue(registrationRepository.findAll().stream().allMatch(r -> r.getCourseId().equals(recentCourse.getId())));
+        List<ArchivedRegistration> archived = archivedRegistrationRepository.findAll();
+        assertEquals(7, archived.size());
+        assertTrue(archived.stream().allMatch(a -> a.getPrice() == 100000L && a.getArchivedDate() != null));
+        assertEquals(7, meterRegistry.get("registration.archived").counter().count());
+
+        // Không còn gì để chuyển
+        assertEquals(0, registrationArchiver.archive());
+    }
+
+    @Test
+    void testArchive_HotQueriesNoLongerSeeArchivedRows() {
+        Long studentId = students.get(0).getId();
+        registrationArchiver.archive();
+
+        assertTrue(registrationRepository.findByStudentIdAndCourseId(studentId, oldCourse.getId()).isEmpty());
+        assertTrue(registrationRepository.findByStudentIdAndCourseId(studentId, recentCourse.getId()).isPresent());
+        assertTrue(archivedRegistrationRepository.existsById(new RegistrationId(studentId, oldCourse.getId())));
+    }
+
+    @Test
+    void testRebuildStats_CountsArchivedRegistrations() {
+        registrationArchiver.archive();
+
+        assertEquals(3, courseStatsService.rebuild());
+
+        CourseStatsSummary stats = courseStatsService.getStats(oldCourse.getId());
+        assertEquals(5, stats.getRegistrations());
+        assertEquals(5 * 100000L, stats.getRevenue());
+        assertEquals(2, courseStatsService.getStats(otherOldCourse.getId()).getRegistrations());
+    }
+
+    private static Course course(String name, LocalDateTime start) {
+        return Course.builder()
+                .name(name)
+                .startTime(start)
+                .endTime(start.plusDays(5))
+                .price(100000L)
+                .build();
+    }
+
+    private static Registration registration(Student student, Course course) {
+        return Registration.builder()
+                .studentId(student.getId())
+                .courseId(course.getId())
+                .price(course.getPrice())
+                .registeredDate(course.getStartTime().minusDays(7))
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.Course;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegistrationDeduplicatorTest {
+
+    private static final String EMAIL = "leejimin@gmail.com";
+
+    @Mock
+    private RegistrationService registrationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RegistrationDeduplicator registrationDeduplicator;
+
+    private final List<Course> upcomingCourses = List.of(Course.builder().id(1L).name("Học làm giàu trong 1 ngày").build());
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        registrationDeduplicator = new RegistrationDeduplicator(registrationService, meterRegistry, 100, Duration.ofMinutes(1), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testRegisterCourse_ConcurrentDuplicatesShareOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(registrationService.registerCourse(EMAIL, 1L)).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return upcomingCourses;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Course>> first = executor.submit(() -> registrationDeduplicator.registerCourse(EMAIL, 1L, null));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<List<Course>> second = executor.submit(() -> registrationDeduplicator.registerCourse("LeeJimin@gmail.com", 1L, "k1"));
+            // Chờ tới khi request thứ hai đã gắn vào lần chạy đầu
+            while (deduplicated("in_flight") == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertSame(upcomingCourses, first.get(10, TimeUnit.SECONDS));
+            assertSame(upcomingCourses, second.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(registrationService, times(1)).registerCourse(EMAIL, 1L);
+    }
+
+    @Test
+    void testRegisterCourse_RetryIsAnsweredFromRecentResult() {
+        when(registrationService.registerCourse(EMAIL, 1L)).thenReturn(upcomingCourses);
+
+        registrationDeduplicator.registerCourse(EMAIL, 1L, "k1");
+        assertSame(upcomingCourses, registrationDeduplicator.registerCourse(EMAIL, 1L, "k1"));
+        verify(registrationService, times(1)).registerCourse(EMAIL, 1L);
+        assertEquals(1, deduplicated("recent"));
+
+        // Idempotency-Key mới là một lần thử mới
+        when(registrationService.registerCourse(EMAIL, 1L)).thenThrow(new IllegalArgumentException("Đã đăng ký khóa học này rồi"));
+        assertThrows(IllegalArgumentException.class, () -> registrationDeduplicator.registerCourse(EMAIL, 1L, "k2"));
+        verify(registrationService, times(2)).registerCourse(EMAIL, 1L);
+    }
+
+    @Test
+    void testRegisterCourse_FailureIsNotKept() {
+        when(registrationService.registerCourse(EMAIL, 1L))
+                .thenThrow(new IllegalArgumentException("Khóa học đã hết chỗ"))
+                .thenReturn(upcomingCourses);
+
+        assertThrows(IllegalArgumentException.class, () -> registrationDeduplicator.registerCourse(EMAIL, 1L, null));
+        assertSame(upcomingCourses, registrationDeduplicator.registerCourse(EMAIL, 1L, null));
+        verify(registrationService, times(2)).registerCourse(EMAIL, 1L);
+    }
+
+    @Test
+    void testRegisterCourse_ErrorIsNotKept() {
+        when(registrationService.registerCourse(EMAIL, 1L))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(upcomingCourses);
+
+        assertThrows(StackOverflowError.class, () -> registrationDeduplicator.registerCourse(EMAIL, 1L, null));
+        assertSame(upcomingCourses, registrationDeduplicator.registerCourse(EMAIL, 1L, null));
+    }
+
+    @Test
+    void testRegisterCourse_DuplicateStopsWaitingAfterTimeout() throws Exception {
+        RegistrationDeduplicator deduplicator = new RegistrationDeduplicator(registrationService, meterRegistry, 100,
+                Duration.ofMinutes(1), Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(registrationService.registerCourse(EMAIL, 1L)).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return upcomingCourses;
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Course>> first = executor.submit(() -> deduplicator.registerCourse(EMAIL, 1L, null));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            assertThrows(IllegalArgumentException.class, () -> deduplicator.registerCourse(EMAIL, 1L, null));
+
+            release.countDown();
+            assertSame(upcomingCourses, first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnregisterCourse_ForgetsRecentResult() {
+        when(registrationService.registerCourse(EMAIL, 1L)).thenReturn(upcomingCourses);
+        when(registrationService.unregisterCourse(1L, EMAIL)).thenReturn(true);
+
+        registrationDeduplicator.registerCourse(EMAIL, 1L, null);
+        assertTrue(registrationDeduplicator.unregisterCourse(1L, EMAIL));
+        registrationDeduplicator.registerCourse(EMAIL, 1L, null);
+
+        verify(registrationService, times(2)).registerCourse(EMAIL, 1L);
+    }
+
+    private double deduplicated(String source) {
+        return meterRegistry.get("registration.deduplicated").tag("source", source).counter().count();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.coursesystem.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Chạy trong execution small-heap của surefire (-Xmx128m): nếu export giữ các dòng trên heap thì sẽ OutOfMemoryError.
+// H2 dùng file và LAZY_QUERY_EXECUTION để dữ liệu và kết quả truy vấn không nằm trên heap như SQL Server thật.
+@Tag("heap")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/export-heap;MODE=MSSQLServer;LAZY_QUERY_EXECUTION=1",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "datasource.query-log.enabled=false"
+})
+class RegistrationExportHeapTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int COURSES = 1_000;
+
+    @Autowired
+    private RegistrationExportService registrationExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testExport_MillionRowsWithSmallHeap() throws Exception {
+        seed();
+        CountingOutputStream output = new CountingOutputStream();
+
+        long rows = registrationExportService.export(null, null, null, RegistrationExportService.Format.NDJSON, output);
+
+        assertEquals(ROWS, rows);
+        assertEquals(ROWS, output.lines);
+        assertTrue(Runtime.getRuntime().maxMemory() <= 256L * 1024 * 1024, "Test phải chạy với heap nhỏ");
+    }
+
+    private void seed() {
+        // SYSTEM_RANGE của H2 sinh dữ liệu ngay trong DB, không đi qua heap của test
+        jdbcTemplate.update("INSERT INTO registration (student_id, course_id, price, registered_date) " +
+                "SELECT (x - 1) / ? + 1, MOD(x - 1, ?) + 1, 100000, ? FROM SYSTEM_RANGE(1, ?)",
+                COURSES, COURSES, Timestamp.valueOf(LocalDateTime.now().minusDays(30)), ROWS);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
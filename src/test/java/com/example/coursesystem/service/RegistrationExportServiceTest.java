@@ -0,0 +1,119 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.model.ArchivedRegistration;
+import com.example.coursesystem.model.Registration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import(RegistrationExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class RegistrationExportServiceTest {
+
+    @Autowired
+    private RegistrationExportService registrationExportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(registration(1L, 10L, 100000L, LocalDateTime.of(2026, 9, 30, 23, 59)));
+        entityManager.persist(registration(2L, 10L, 75000L, LocalDateTime.of(2026, 10, 1, 0, 0)));
+        entityManager.persist(registration(3L, 20L, 200000L, LocalDateTime.of(2026, 10, 31, 12, 0)));
+        entityManager.persist(registration(4L, 10L, 100000L, LocalDateTime.of(2026, 11, 1, 0, 0)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testExport_CsvFilteredByDateRange() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = registrationExportService.export(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 31), null,
+                RegistrationExportService.Format.CSV, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().sorted().toList();
+        assertEquals(2, rows);
+        assertEquals(List.of(
+                "2,10,75000,2026-10-01T00:00",
+                "3,20,200000,2026-10-31T12:00",
+                "student_id,course_id,price,registered_date"), lines);
+    }
+
+    @Test
+    void testExport_NdjsonFilteredByCourse() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = registrationExportService.export(null, null, 10L, RegistrationExportService.Format.NDJSON, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, rows);
+        assertEquals(3, lines.size());
+        for (String line : lines) {
+            JsonNode json = objectMapper.readTree(line);
+            assertEquals(10L, json.get("courseId").asLong());
+        }
+        assertEquals(0, entityManager.getEntityManager().unwrap(org.hibernate.Session.class)
+                .getStatistics().getEntityCount());
+    }
+
+    @Test
+    void testExport_IncludesArchivedRegistrations() throws Exception {
+        entityManager.persist(ArchivedRegistration.builder()
+                .studentId(1L)
+                .courseId(5L)
+                .price(50000L)
+                .registeredDate(LocalDateTime.of(2025, 3, 1, 8, 0))
+                .archivedDate(LocalDateTime.of(2026, 1, 1, 4, 0))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = registrationExportService.export(null, null, null, RegistrationExportService.Format.CSV, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5, rows);
+        assertEquals("1,5,50000,2025-03-01T08:00", lines.get(lines.size() - 1));
+        assertEquals(0, entityManager.getEntityManager().unwrap(org.hibernate.Session.class)
+                .getStatistics().getEntityCount());
+    }
+
+    @Test
+    void testFormat_Unsupported() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            RegistrationExportService.Format.parse("xlsx");
+        });
+        assertEquals("Định dạng không hỗ trợ: xlsx", exception.getMessage());
+    }
+
+    private Registration registration(Long studentId, Long courseId, Long price, LocalDateTime registeredDate) {
+        return Registration.builder()
+                .studentId(studentId)
+                .courseId(courseId)
+                .price(price)
+                .registeredDate(registeredDate)
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.dto.RegistrationContext;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Student;
+import com.example.coursesystem.repository.CourseRepository;
+import com.example.coursesystem.repository.RegistrationRepository;
+import com.example.coursesystem.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class RegistrationServiceConcurrencyTest {
+
+    private static final int THREADS = 300;
+    private static final int CAPACITY = 50;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Course course;
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() {
+        course = courseRepository.save(Course.builder()
+                .name("Khóa học giới hạn chỗ")
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(5))
+                .price(100000L)
+                .capacity(CAPACITY)
+                .build());
+
+        String batch = UUID.randomUUID().toString();
+        students = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            students.add(Student.builder()
+                    .email(batch + "-" + i + "@gmail.com")
+                    .firstName("Lee")
+                    .lastName("Jimin " + i)
+                    .build());
+        }
+        students = studentRepository.saveAll(students);
+    }
+
+    @Test
+    void testRegisterCourse_NeverOversells() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+
+        runConcurrently(student -> {
+            try {
+                registrationService.registerCourse(student.getEmail(), course.getId());
+                succeeded.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Khóa học đã hết chỗ", e.getMessage());
+                soldOut.incrementAndGet();
+            }
+        });
+
+        assertEquals(CAPACITY, succeeded.get());
+        assertEquals(THREADS - CAPACITY, soldOut.get());
+        assertEquals(CAPACITY, countRegistrations());
+        assertEquals(CAPACITY, courseRepository.findById(course.getId()).orElseThrow().getSeatsTaken());
+    }
+
+    // So sánh thông lượng với giữ chỗ bằng khóa bi quan: chỉ chạy với mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void testPessimisticLockBaseline() throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        // Cùng các bước như registerCourse, nhưng giữ chỗ bằng SELECT ... FOR UPDATE
+        long elapsed = runConcurrently(student -> transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Course locked = entityManager.find(Course.class, course.getId(), LockModeType.PESSIMISTIC_WRITE);
+            if (locked.getSeatsTaken() >= locked.getCapacity()) {
+                return;
+            }
+            RegistrationContext context = registrationRepository
+                    .findRegistrationContext(student.getEmail(), course.getId())
+                    .orElseThrow();
+            locked.setSeatsTaken(locked.getSeatsTaken() + 1);
+            registrationRepository.insert(context.getStudentId(), locked.getId(), locked.getPrice(), now);
+            courseRepository.findUpcomingCoursesByStudentId(context.getStudentId(), now);
+            succeeded.incrementAndGet();
+        }));
+
+        assertEquals(CAPACITY, succeeded.get());
+        assertEquals(CAPACITY, countRegistrations());
+        report("pessimistic lock", elapsed);
+    }
+
+    private long runConcurrently(Consumer<Student> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (Student student : students) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    task.accept(student);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private long countRegistrations() {
+        return registrationRepository.findAll().stream()
+                .filter(registration -> registration.getCourseId().equals(course.getId()))
+                .count();
+    }
+
+    private void report(String mode, long elapsedNanos) {
+        System.out.printf("[%s] %d requests in %d ms (%.0f req/s)%n", mode, THREADS,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), THREADS * 1e9 / elapsedNanos);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.coursesystem.service;
+
+import com.example.coursesystem.cache.CatalogVersion;
+import com.example.coursesystem.cache.CourseCache;
+import com.example.coursesystem.cache.StudentIdCache;
+import com.example.coursesystem.cache.StudentScheduleCache;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.metrics.QueryLoggingDataSourcePostProcessor;
+import com.example.coursesystem.metrics.RegistrationMetrics;
+import com.example.coursesystem.metrics.SlowQueryLogger;
+import com.example.coursesystem.metrics.StatementCounter;
+import com.example.coursesystem.model.ChangeType;
+import com.example.coursesystem.model.Course;
+import com.example.coursesystem.model.Registration;
+import com.example.coursesystem.model.RegistrationId;
+import com.example.coursesystem.model.Student;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Refresh định kỳ của ChangeFeed chạy trên thread khác và làm lệch số câu lệnh đếm được
+@DataJpaTest(properties = "changes.refresh-interval=1h")
+@Import({RegistrationService.class, OngoingCourseCounter.class, CourseStatsService.class, CatalogVersion.class, CourseCache.class, StudentIdCache.class, StudentScheduleCache.class, ReadYourWrites.class, RegistrationMetrics.class, StatementCounter.class, SlowQueryLogger.class, QueryLoggingDataSourcePostProcessor.class, ChangeFeed.class, ThreadPoolTaskScheduler.class, SimpleMeterRegistry.class})
+class RegistrationServiceQueryCountTest {
+
+    private static final int UPCOMING_COURSES = 40;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Student student;
+    private Course newCourse;
+
+    @BeforeEach
+    void setUp() {
+        student = entityManager.persist(Student.builder()
+                .email("leejimin@gmail.com")
+                .firstName("Lee")
+                .lastName("Jimin")
+                .build());
+
+        for (int i = 0; i < UPCOMING_COURSES; i++) {
+            Course course = entityManager.persist(upcomingCourse("Khóa học " + i, 1));
+            entityManager.persist(Registration.builder()
+                    .studentId(student.getId())
+                    .courseId(course.getId())
+                    .price(course.getPrice())
+                    .registeredDate(LocalDateTime.now())
+                    .build());
+        }
+        // Bắt đầu sau khi các khóa đã đăng ký kết thúc để không trùng lịch
+        newCourse = entityManager.persist(upcomingCourse("Khóa học mới", 10));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testRegisterCourse_StatementCountDoesNotGrowWithUpcomingCourses() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Course> result = registrationService.registerCourse(student.getEmail(), newCourse.getId());
+
+        assertEquals(UPCOMING_COURSES + 1, result.size());
+        // student (with ongoing counter)/course, schedule (cache trống), insert, course stats update, upcoming courses
+        // + lần đăng ký đầu tiên của khóa: UPDATE lại sau khi INSERT dòng stats
+        // (INSERT dòng stats, INSERT change_event và UPDATE version lịch đi qua JdbcTemplate nên Hibernate không thấy)
+        assertEquals(6, statistics.getPrepareStatementCount());
+        assertEquals(1L, entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(e) FROM ChangeEvent e WHERE e.type = :type AND e.studentId = :studentId", Long.class)
+                .setParameter("type", ChangeType.REGISTERED)
+                .setParameter("studentId", student.getId())
+                .getSingleResult());
+    }
+
+    @Test
+    void testRegisterCourse_StatementMetricRecordedAfterCommitAtDataSourceLevel() {
+        // Commit dữ liệu chuẩn bị trước để chỉ transaction đăng ký được đo
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            TestTransaction.start();
+            TestTransaction.flagForCommit();
+            registrationService.registerCourse(student.getEmail(), newCourse.getId());
+            assertNull(meterRegistry.find("registration.statements").tag("outcome", "success").summary());
+
+            TestTransaction.end();
+
+            // Dòng stats đã có nên chỉ một UPDATE; INSERT change_event và UPDATE version lịch qua JdbcTemplate cũng được đếm
+            assertEquals(7, meterRegistry.get("registration.statements")
+                    .tag("operation", "register").tag("outcome", "success").summary().max());
+        } finally {
+            deleteCommittedData();
+        }
+    }
+
+    @Test
+    void testRegisterCourse_DuplicateRejectedByPrimaryKey() {
+        registrationService.registerCourse(student.getEmail(), newCourse.getId());
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), newCourse.getId());
+        });
+        assertEquals("Đã đăng ký khóa học này rồi", exception.getMessage());
+    }
+
+    @Test
+    void testRegisterCourse_RejectsScheduleConflict() {
+        Course overlapping = entityManager.persist(upcomingCourse("Khóa học trùng lịch", 3));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), overlapping.getId());
+        });
+        assertEquals("Trùng lịch với khóa học đã đăng ký", exception.getMessage());
+    }
+
+    @Test
+    void testUnregisterCourse_RemovesRegistration() {
+        registrationService.registerCourse(student.getEmail(), newCourse.getId());
+
+        assertTrue(registrationService.unregisterCourse(newCourse.getId(), student.getEmail()));
+        assertNull(entityManager.find(Registration.class, new RegistrationId(student.getId(), newCourse.getId())));
+    }
+
+    @Test
+    void testRegisterCourse_CourseNotFound() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), -1L);
+        });
+        assertEquals("Không tìm thấy khóa học", exception.getMessage());
+    }
+
+    private void deleteCommittedData() {
+        TestTransaction.start();
+        for (String entity : List.of("Registration", "ChangeEvent", "CourseStats", "Course", "Student")) {
+            entityManager.getEntityManager().createQuery("DELETE FROM " + entity).executeUpdate();
+        }
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    private Course upcomingCourse(String name, int startsInDays) {
+        return Course.builder()
+                .name(name)
+                .startTime(LocalDateTime.now().plusDays(startsInDays))
+                .endTime(LocalDateTime.now().plusDays(startsInDays + 4))
+                .price(100000L)
+                .build();
+    }
+}
@@ -1,16 +1,28 @@
 package com.example.coursesystem.service;
 
+import com.example.coursesystem.cache.CourseCache;
+import com.example.coursesystem.cache.StudentIdCache;
+import com.example.coursesystem.cache.StudentScheduleCache;
+import com.example.coursesystem.datasource.ReadYourWrites;
+import com.example.coursesystem.dto.RegistrationContext;
+import com.example.coursesystem.dto.UnregistrationContext;
+import com.example.coursesystem.metrics.RegistrationMetrics;
 import com.example.coursesystem.model.Course;
 import com.example.coursesystem.model.Registration;
 import com.example.coursesystem.model.Student;
 import com.example.coursesystem.repository.CourseRepository;
 import com.example.coursesystem.repository.RegistrationRepository;
-import com.example.coursesystem.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -27,10 +39,33 @@ public class RegistrationServiceTest {
     private CourseRepository courseRepository;
 
     @Mock
-    private StudentRepository studentRepository;
+    private RegistrationRepository registrationRepository;
 
     @Mock
-    private RegistrationRepository registrationRepository;
+    private CourseCache courseCache;
+
+    @Mock
+    private StudentIdCache studentIdCache;
+
+    @Mock
+    private OngoingCourseCounter ongoingCourseCounter;
+
+    @Mock
+    private CourseStatsService courseStatsService;
+
+    @Mock
+    private StudentScheduleCache studentScheduleCache;
+
+    @Mock
+    private ReadYourWrites readYourWrites;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private RegistrationMetrics registrationMetrics = new RegistrationMetrics(meterRegistry);
 
     @InjectMocks
     private RegistrationService registrationService;
@@ -58,6 +93,7 @@ public class RegistrationServiceTest {
         when(upcomingCourse.getStartTime()).thenReturn(LocalDateTime.now().plusDays(1));
         when(upcomingCourse.getEndTime()).thenReturn(LocalDateTime.now().plusDays(2));
         when(upcomingCourse.getPrice()).thenReturn(100000L);
+        when(upcomingCourse.getCapacity()).thenReturn(null);
         when(upcomingCourse.hasStarted()).thenReturn(false);
 
         ongoingCourse = mock(Course.class);
@@ -66,6 +102,7 @@ public class RegistrationServiceTest {
         when(ongoingCourse.getStartTime()).thenReturn(LocalDateTime.now().minusDays(1));
         when(ongoingCourse.getEndTime()).thenReturn(LocalDateTime.now().plusDays(1));
         when(ongoingCourse.getPrice()).thenReturn(100000L);
+        when(ongoingCourse.getCapacity()).thenReturn(null);
         when(ongoingCourse.hasStarted()).thenReturn(true);
 
         pastCourse = mock(Course.class);
@@ -74,6 +111,7 @@ public class RegistrationServiceTest {
         when(pastCourse.getStartTime()).thenReturn(LocalDateTime.now().minusDays(3));
         when(pastCourse.getEndTime()).thenReturn(LocalDateTime.now().minusDays(2));
         when(pastCourse.getPrice()).thenReturn(100000L);
+        when(pastCourse.getCapacity()).thenReturn(null);
         when(pastCourse.hasStarted()).thenReturn(true);
 
         registration = Registration.builder()
@@ -86,48 +124,120 @@ public class RegistrationServiceTest {
 
     @Test
     void testRegisterCourse_Success() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
-        when(registrationRepository.findByStudentIdAndCourseId(student.getId(), upcomingCourse.getId()))
-                .thenReturn(Optional.empty());
-        when(registrationRepository.countOngoingCoursesByStudentId(anyLong(), any())).thenReturn(0);
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
 
-        when(registrationRepository.findUpcomingRegistrationsByStudentId(anyLong(), any()))
-                .thenReturn(List.of(registration));
-        when(courseRepository.findById(registration.getCourseId())).thenReturn(Optional.of(upcomingCourse));
+        when(courseRepository.findUpcomingCoursesByStudentId(anyLong(), any()))
+                .thenReturn(List.of(upcomingCourse));
         List<Course> result = registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
 
-        verify(registrationRepository, times(1)).save(any(Registration.class));
+        verify(registrationRepository, times(1))
+                .insert(eq(student.getId()), eq(1L), eq(100000L), any());
+        verify(ongoingCourseCounter).registrationAdded(student.getId(), upcomingCourse);
+        verify(readYourWrites).recordWrite(student.getEmail());
         assertEquals(1, result.size());
         assertEquals(upcomingCourse.getId(), result.get(0).getId());
     }
 
     @Test
-    void testRegisterCourse_WithDiscount() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
-        when(registrationRepository.findByStudentIdAndCourseId(student.getId(), upcomingCourse.getId()))
+    void testRegisterCourse_RecordsStageMetrics() {
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
+
+        registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
+
+        for (String stage : List.of("lookup", "insert", "upcoming")) {
+            assertEquals(1, meterRegistry.get("registration.stage")
+                    .tag("operation", "register").tag("stage", stage).tag("outcome", "success")
+                    .timer().count());
+        }
+        assertEquals(1, meterRegistry.get("registration.request")
+                .tag("operation", "register").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testRegisterCourse_FailureTaggedWithReason() {
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
                 .thenReturn(Optional.empty());
-        when(registrationRepository.countOngoingCoursesByStudentId(anyLong(), any())).thenReturn(2);
 
-        Registration registration1 = Registration.builder()
-                .studentId(student.getId())
-                .courseId(1L)
-                .build();
-        when(registrationRepository.findUpcomingRegistrationsByStudentId(anyLong(), any()))
-                .thenReturn(List.of(registration1));
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(upcomingCourse));
+        assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
+        });
+
+        assertEquals(1, meterRegistry.get("registration.request")
+                .tag("operation", "register").tag("outcome", "student_not_found").timer().count());
+    }
+
+    @Test
+    void testRegisterCourse_UnexpectedErrorTaggedAsError() {
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
+        });
+
+        assertEquals(1, meterRegistry.get("registration.request")
+                .tag("operation", "register").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void testRegisterCourse_OutcomeRecordedAfterTransactionCompletes() {
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
+            assertNull(meterRegistry.find("registration.request").timer());
+
+            // Commit thất bại: transaction manager báo rollback
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(meterRegistry.find("registration.request").tag("outcome", "success").timer());
+        assertEquals(1, meterRegistry.get("registration.request")
+                .tag("operation", "register").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void testRegisterCourse_ScheduleConflict() {
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
+        doThrow(new IllegalArgumentException("Trùng lịch với khóa học đã đăng ký"))
+                .when(studentScheduleCache).reserve(student.getId(), 0L, upcomingCourse);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
+        });
+
+        assertEquals("Trùng lịch với khóa học đã đăng ký", exception.getMessage());
+        verify(registrationRepository, never()).insert(anyLong(), anyLong(), anyLong(), any());
+        assertEquals(1, meterRegistry.get("registration.request")
+                .tag("operation", "register").tag("outcome", "schedule_conflict").timer().count());
+    }
+
+    @Test
+    void testRegisterCourse_WithDiscount() {
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 2, 0L)));
+
+        when(courseRepository.findUpcomingCoursesByStudentId(anyLong(), any()))
+                .thenReturn(List.of(upcomingCourse));
 
         registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
 
-        verify(registrationRepository, times(1)).save(argThat(registration ->
-                registration.getPrice().equals(upcomingCourse.getPrice() * 75 / 100)));
+        verify(registrationRepository, times(1))
+                .insert(eq(student.getId()), eq(1L), eq(75000L), any());
     }
 
     @Test
     void testRegisterCourse_AlreadyStarted() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(ongoingCourse.getId())).thenReturn(Optional.of(ongoingCourse));
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(2L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), ongoingCourse, 0, 0L)));
 
         // Sử dụng spy hoặc mock hasStarted method để trả về true
         doReturn(true).when(ongoingCourse).hasStarted();
@@ -136,70 +246,108 @@ public class RegistrationServiceTest {
             registrationService.registerCourse(student.getEmail(), ongoingCourse.getId());
         });
         assertEquals("Không thể đăng ký khóa học đã bắt đầu", exception.getMessage());
-        verify(registrationRepository, never()).save(any());
+        verify(registrationRepository, never()).insert(any(), any(), any(), any());
     }
 
     @Test
     void testRegisterCourse_AlreadyRegistered() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
-        when(registrationRepository.findByStudentIdAndCourseId(student.getId(), upcomingCourse.getId()))
-                .thenReturn(Optional.of(registration));
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
+        when(registrationRepository.insert(eq(student.getId()), eq(1L), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
         });
         assertEquals("Đã đăng ký khóa học này rồi", exception.getMessage());
-        verify(registrationRepository, never()).save(any());
+        verify(courseRepository, never()).findUpcomingCoursesByStudentId(any(), any());
+    }
+
+    @Test
+    void testRegisterCourse_SoldOut() {
+        when(upcomingCourse.getCapacity()).thenReturn(1);
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
+        when(courseRepository.claimSeat(1L)).thenReturn(0);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
+        });
+        assertEquals("Khóa học đã hết chỗ", exception.getMessage());
     }
 
     @Test
     void testRegisterCourse_StudentNotFound() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.empty());
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.empty());
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
         });
         assertEquals("Không tìm thấy học viên", exception.getMessage());
-        verify(registrationRepository, never()).save(any());
+        verify(registrationRepository, never()).insert(any(), any(), any(), any());
     }
 
     @Test
     void testRegisterCourse_CourseNotFound() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.empty());
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), null, 0, 0L)));
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
         });
         assertEquals("Không tìm thấy khóa học", exception.getMessage());
-        verify(registrationRepository, never()).save(any());
+        verify(registrationRepository, never()).insert(any(), any(), any(), any());
     }
 
     @Test
     void testUnregisterCourse_Success() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
+        when(studentIdCache.findIdByEmail(student.getEmail())).thenReturn(Optional.of(student.getId()));
         doReturn(false).when(upcomingCourse).hasStarted();
 
         Registration registration = new Registration();
         registration.setStudentId(student.getId());
         registration.setCourseId(upcomingCourse.getId());
 
-        when(registrationRepository.findByStudentIdAndCourseId(student.getId(), upcomingCourse.getId()))
-                .thenReturn(Optional.of(registration));
+        when(registrationRepository.findUnregistrationContext(student.getId(), upcomingCourse.getId()))
+                .thenReturn(Optional.of(new UnregistrationContext(registration, upcomingCourse)));
 
         boolean result = registrationService.unregisterCourse(upcomingCourse.getId(), student.getEmail());
 
         assertTrue(result);
         verify(registrationRepository, times(1)).delete(registration);
+        verify(ongoingCourseCounter).registrationRemoved(student.getId(), upcomingCourse);
+        verify(courseCache, never()).findById(any());
     }
 
     @Test
     void testUnregisterCourse_AlreadyStarted() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(ongoingCourse.getId())).thenReturn(Optional.of(ongoingCourse));
+        when(studentIdCache.findIdByEmail(student.getEmail())).thenReturn(Optional.of(student.getId()));
         doReturn(true).when(ongoingCourse).hasStarted();
+        when(registrationRepository.findUnregistrationContext(student.getId(), ongoingCourse.getId()))
+                .thenReturn(Optional.of(new UnregistrationContext(new Registration(), ongoingCourse)));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            registrationService.unregisterCourse(ongoingCourse.getId(), student.getEmail());
+        });
+
+        assertEquals("Không thể hủy đăng ký khóa học đã bắt đầu", exception.getMessage());
+        verify(registrationRepository, never()).delete(any());
+    }
+
+    @Test
+    void testUnregisterCourse_StartTimeReadFromDatabaseNotCache() {
+        // Instance khác đã dời lịch khóa học lên sớm hơn; CourseCache ở đây vẫn giữ lịch cũ
+        Course cachedCourse = Course.builder()
+                .id(ongoingCourse.getId())
+                .startTime(LocalDateTime.now().plusDays(5))
+                .endTime(LocalDateTime.now().plusDays(10))
+                .build();
+        when(courseCache.findById(ongoingCourse.getId())).thenReturn(Optional.of(cachedCourse));
+        when(studentIdCache.findIdByEmail(student.getEmail())).thenReturn(Optional.of(student.getId()));
+        doReturn(true).when(ongoingCourse).hasStarted();
+        when(registrationRepository.findUnregistrationContext(student.getId(), ongoingCourse.getId()))
+                .thenReturn(Optional.of(new UnregistrationContext(new Registration(), ongoingCourse)));
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             registrationService.unregisterCourse(ongoingCourse.getId(), student.getEmail());
@@ -211,11 +359,11 @@ public class RegistrationServiceTest {
 
     @Test
     void testUnregisterCourse_NotRegistered() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
+        when(studentIdCache.findIdByEmail(student.getEmail())).thenReturn(Optional.of(student.getId()));
+        when(courseCache.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
         doReturn(false).when(upcomingCourse).hasStarted();
 
-        when(registrationRepository.findByStudentIdAndCourseId(student.getId(), upcomingCourse.getId()))
+        when(registrationRepository.findUnregistrationContext(student.getId(), upcomingCourse.getId()))
                 .thenReturn(Optional.empty());
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -228,7 +376,7 @@ public class RegistrationServiceTest {
 
     @Test
     void testUnregisterCourse_StudentNotFound() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.empty());
+        when(studentIdCache.findIdByEmail(student.getEmail())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             registrationService.unregisterCourse(upcomingCourse.getId(), student.getEmail());
@@ -239,8 +387,8 @@ public class RegistrationServiceTest {
 
     @Test
     void testUnregisterCourse_CourseNotFound() {
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.empty());
+        when(studentIdCache.findIdByEmail(student.getEmail())).thenReturn(Optional.of(student.getId()));
+        when(courseCache.findById(upcomingCourse.getId())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             registrationService.unregisterCourse(upcomingCourse.getId(), student.getEmail());
@@ -251,26 +399,12 @@ public class RegistrationServiceTest {
 
     @Test
     void testGetUpcomingRegisteredCourses() {
-        Registration reg1 = Registration.builder()
-                .studentId(student.getId())
-                .courseId(upcomingCourse.getId())
-                .build();
-        Registration reg2 = Registration.builder()
-                .studentId(student.getId())
-                .courseId(2L)
-                .build();
-
-        when(registrationRepository.findUpcomingRegistrationsByStudentId(
+        when(courseRepository.findUpcomingCoursesByStudentId(
                 eq(student.getId()), any(LocalDateTime.class)))
-                .thenReturn(Arrays.asList(reg1, reg2));
+                .thenReturn(Arrays.asList(upcomingCourse, ongoingCourse));
 
-        when(courseRepository.findById(upcomingCourse.getId())).thenReturn(Optional.of(upcomingCourse));
-        when(courseRepository.findById(2L)).thenReturn(Optional.of(ongoingCourse));
-
-        when(studentRepository.findByEmail(student.getEmail())).thenReturn(Optional.of(student));
-        when(registrationRepository.findByStudentIdAndCourseId(student.getId(), upcomingCourse.getId()))
-                .thenReturn(Optional.empty());
-        when(registrationRepository.countOngoingCoursesByStudentId(anyLong(), any())).thenReturn(0);
+        when(registrationRepository.findRegistrationContext(eq(student.getEmail()), eq(1L)))
+                .thenReturn(Optional.of(new RegistrationContext(student.getId(), upcomingCourse, 0, 0L)));
 
         List<Course> result = registrationService.registerCourse(student.getEmail(), upcomingCourse.getId());
 
@@ -279,4 +413,4 @@ public class RegistrationServiceTest {
         assertTrue(result.contains(ongoingCourse));
     }
 
-}
\ No newline at end of file
+}
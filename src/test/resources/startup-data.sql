@@ -0,0 +1,3 @@
+-- Dữ liệu tối thiểu cho StartupTimeBenchmarkTest: một học viên và một khóa sắp mở
+INSERT INTO course (id, name, start_time, end_time, price, seats_taken) VALUES (1, 'Khóa học 1', DATEADD('DAY', 30, CURRENT_TIMESTAMP), DATEADD('DAY', 35, CURRENT_TIMESTAMP), 100000, 0);
+INSERT INTO student (id, email, first_name, last_name) VALUES (1, 'student1@gmail.com', 'Lee', 'Jimin');